@@ -0,0 +1,74 @@
+package org.khemritolya.functional.bench;
+
+import org.khemritolya.functional.RecursiveFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the same recursions evaluated by the original java.util.Stack loop of
+ * BaselineRecursiveFunction and by the current RecursiveFunction, each pair differing only in the engine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaselineBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int depth;
+
+    /**
+     * The n of the fib benchmarks, which do not depend on depth
+     */
+    private static final int FIB_N = 20;
+
+    private final BaselineRecursiveFunction<Long, Long> baselineFactorial =
+            new BaselineRecursiveFunction<>((func, n) -> {
+                if (n <= 1) return func.result(1L);
+                else return func.call(n - 1L).transform(v -> v * n);
+            });
+
+    private final RecursiveFunction<Long, Long> factorial = new RecursiveFunction<>((func, n) -> {
+        if (n <= 1) return func.result(1L);
+        else return func.call(n - 1L).transform(v -> v * n);
+    });
+
+    private final BaselineRecursiveFunction<Integer, Integer> baselineFib =
+            new BaselineRecursiveFunction<>((func, n) -> {
+                if (n <= 1) return func.result(1);
+                return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+            });
+
+    private final RecursiveFunction<Integer, Integer> fib = new RecursiveFunction<>((func, n) -> {
+        if (n <= 1) return func.result(1);
+        return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+    });
+
+    @Benchmark
+    public Long baselineFactorial() {
+        return baselineFactorial.execute((long) depth);
+    }
+
+    @Benchmark
+    public Long factorial() {
+        return factorial.execute((long) depth);
+    }
+
+    @Benchmark
+    public Integer baselineFib() {
+        return baselineFib.execute(FIB_N);
+    }
+
+    @Benchmark
+    public Integer fib() {
+        return fib.execute(FIB_N);
+    }
+}
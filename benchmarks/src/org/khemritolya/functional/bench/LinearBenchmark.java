@@ -0,0 +1,110 @@
+package org.khemritolya.functional.bench;
+
+import org.khemritolya.functional.LongRecursiveFunction;
+import org.khemritolya.functional.RecursiveFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks of recursions which are a single chain of calls, so the recursion depth equals {@code depth}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinearBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int depth;
+
+    private List<Integer> increasing;
+    private List<Integer> palindrome;
+
+    private final RecursiveFunction<Long, Long> factorial = new RecursiveFunction<>((func, n) -> {
+        if (n <= 1) return func.result(1L);
+        else return func.call(n - 1L).transform(v -> v * n);
+    });
+
+    private final LongRecursiveFunction longFactorial = new LongRecursiveFunction((func, n) -> {
+        if (n <= 1) return func.result(1L);
+        else return func.call(n - 1L).transform(v -> v * n);
+    });
+
+    private final RecursiveFunction<Integer, Integer> transformChain = new RecursiveFunction<>((func, n) -> {
+        if (n <= 0) return func.result(0);
+        else return func.call(n - 1)
+                .transform(v -> v + 1)
+                .transform(v -> v * 2)
+                .transform(v -> v / 2);
+    });
+
+    private final RecursiveFunction<List<Integer>, Boolean> isIncreasing = new RecursiveFunction<>((func, list) -> {
+        if (list.size() <= 1)
+            return func.result(true);
+        else if (list.get(1) < list.get(0))
+            return func.result(false);
+        else
+            return func.call(list.subList(1, list.size()));
+    });
+
+    private final RecursiveFunction<List<Integer>, Boolean> isPalindrome = new RecursiveFunction<>((func, list) -> {
+        if (list.size() <= 1)
+            return func.result(true);
+        else if (!list.get(0).equals(list.get(list.size() - 1)))
+            return func.result(false);
+        else
+            return func.call(list.subList(1, list.size() - 1));
+    });
+
+    @Setup
+    public void setup() {
+        increasing = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) increasing.add(i);
+
+        // twice as long, since every call strips an element from both ends
+        palindrome = new ArrayList<>(2 * depth);
+        for (int i = 0; i < depth; i++) palindrome.add(i);
+        for (int i = depth - 1; i >= 0; i--) palindrome.add(i);
+    }
+
+    @Benchmark
+    public Long factorial(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return factorial.withListener(maxDepth).execute((long) depth);
+        return factorial.execute((long) depth);
+    }
+
+    @Benchmark
+    public long longFactorial() {
+        return longFactorial.execute(depth);
+    }
+
+    @Benchmark
+    public Integer transformChain(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return transformChain.withListener(maxDepth).execute(depth);
+        return transformChain.execute(depth);
+    }
+
+    @Benchmark
+    public Boolean isIncreasing(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return isIncreasing.withListener(maxDepth).execute(increasing);
+        return isIncreasing.execute(increasing);
+    }
+
+    @Benchmark
+    public Boolean isPalindrome(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return isPalindrome.withListener(maxDepth).execute(palindrome);
+        return isPalindrome.execute(palindrome);
+    }
+}
@@ -0,0 +1,47 @@
+package org.khemritolya.functional.bench;
+
+import org.khemritolya.functional.ExecutionListener;
+import org.khemritolya.functional.ExecutionStats;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reports the deepest callstack a benchmark reached next to its ops/s, which for joins is deeper than the
+ * recursion depth, as the join functions and the other sides of pending joins take room on the callstack too.
+ *
+ * Only the first execution of every iteration is observed, so the executions measured collect no counters.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class MaxDepth implements ExecutionListener {
+
+    /**
+     * The deepest callstack of the observed executions of the current iteration
+     */
+    public long maxDepth;
+
+    private boolean observed;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        maxDepth = 0;
+        observed = false;
+    }
+
+    /**
+     * @return whether the next execution is the first of the iteration, and should be observed
+     */
+    boolean observeNext() {
+        if (observed) return false;
+        observed = true;
+        return true;
+    }
+
+    @Override
+    public void executed(ExecutionStats stats) {
+        maxDepth = Math.max(maxDepth, stats.maxDepth());
+    }
+}
@@ -0,0 +1,78 @@
+package org.khemritolya.functional.bench;
+
+import org.khemritolya.functional.IntRecursiveFunction;
+import org.khemritolya.functional.RecursiveFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmarks of recursions which branch on every call, so the recursion depth is {@code n}
+ * while the amount of calls grows exponentially with it. The callstack grows deeper than n, which the
+ * maxDepth counter reports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBenchmark {
+
+    @Param({"10", "20", "25"})
+    public int n;
+
+    private final RecursiveFunction<Integer, Integer> fib = new RecursiveFunction<>((func, n) -> {
+        if (n <= 1) return func.result(1);
+        return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+    });
+
+    private final IntRecursiveFunction intFib = new IntRecursiveFunction((func, n) -> {
+        if (n <= 1) return func.result(1);
+        return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+    });
+
+    private final RecursiveFunction<Integer, Integer> mTrip = new RecursiveFunction<>((func, n) -> {
+        if (n <= 1) return func.result(1);
+        var oneback = func.call(n - 1).transform(v -> v * 2);
+        var twoback = func.call(n - 2).transform(v -> v / 2);
+        var threeback = func.call(n - 3);
+        return oneback.join(twoback.join(threeback, Integer::sum), Integer::sum).transform(v -> v - 3);
+    });
+
+    @Benchmark
+    public Integer fib(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return fib.withListener(maxDepth).execute(n);
+        return fib.execute(n);
+    }
+
+    @Benchmark
+    public Integer fibParallel(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return fib.withListener(maxDepth).executeParallel(n, ForkJoinPool.commonPool());
+        return fib.executeParallel(n, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public Integer fibBottomUp(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return fib.withListener(maxDepth).executeBottomUp(n, i -> i, i -> i, 0, 2);
+        return fib.executeBottomUp(n, i -> i, i -> i, 0, 2);
+    }
+
+    @Benchmark
+    public int intFib() {
+        return intFib.execute(n);
+    }
+
+    @Benchmark
+    public Integer mTrip(MaxDepth maxDepth) {
+        if (maxDepth.observeNext()) return mTrip.withListener(maxDepth).execute(n);
+        return mTrip.execute(n);
+    }
+}
@@ -0,0 +1,114 @@
+package org.khemritolya.functional;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An unsynchronized stack backed by a growable array, used as the evaluation stack of RecursiveFunction.
+ *
+ * Stacks are pooled per thread, so that repeated executions on the same thread reuse already grown arrays
+ * instead of allocating new ones.
+ *
+ * @param <T> the type of the elements on the stack
+ *
+ * @see RecursiveFunction#execute(Object)
+ */
+final class ArrayStack<T> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Stacks which grew beyond this capacity are not returned to the pool, so one very deep recursion
+     * does not pin its memory to the thread forever
+     */
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+
+    private static final int MAX_POOLED_STACKS = 8;
+
+    private static final ThreadLocal<ArrayStack<ArrayStack<?>>> POOL =
+            ThreadLocal.withInitial(() -> new ArrayStack<>(MAX_POOLED_STACKS));
+
+    private Object[] elements;
+    private int size = 0;
+
+    ArrayStack(int capacity) {
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Takes an empty stack from the pool of the current thread, or creates one if the pool is empty
+     *
+     * @param <T> the type of the elements on the stack
+     * @return an empty stack
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ArrayStack<T> acquire() {
+        ArrayStack<ArrayStack<?>> pool = POOL.get();
+        if (pool.isEmpty()) return new ArrayStack<>(INITIAL_CAPACITY);
+        return (ArrayStack<T>) pool.pop();
+    }
+
+    /**
+     * Empties a stack and returns it to the pool of the current thread
+     *
+     * @param stack a stack previously taken from acquire()
+     */
+    static void release(ArrayStack<?> stack) {
+        stack.clear();
+
+        ArrayStack<ArrayStack<?>> pool = POOL.get();
+        if (stack.elements.length <= MAX_POOLED_CAPACITY && pool.size < MAX_POOLED_STACKS) pool.push(stack);
+    }
+
+    void push(T element) {
+        if (size == elements.length) elements = Arrays.copyOf(elements, size << 1);
+        elements[size++] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    T pop() {
+        T element = (T) elements[--size];
+        elements[size] = null;
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    T peek() {
+        return (T) elements[size - 1];
+    }
+
+    /**
+     * @param index the position of the element, 0 being the bottom of the stack
+     * @return the element at the given position
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        return (T) elements[index];
+    }
+
+    /**
+     * Pops every element above the given size at once
+     *
+     * @param base the size of the stack once the elements are popped
+     * @return the popped elements, from the bottom of the stack to the top
+     */
+    @SuppressWarnings("unchecked")
+    List<T> popTo(int base) {
+        Object[] popped = Arrays.copyOfRange(elements, base, size);
+        Arrays.fill(elements, base, size, null);
+        size = base;
+        return (List<T>) Arrays.asList(popped);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+}
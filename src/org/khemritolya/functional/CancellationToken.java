@@ -0,0 +1,26 @@
+package org.khemritolya.functional;
+
+/**
+ * A flag which can be set from any thread to ask executions using it to stop.
+ *
+ * Executions check the flag once every 1024 evaluation steps and throw an ExecutionLimitException once it is set.
+ *
+ * @see ExecutionLimits#cancellation(CancellationToken)
+ */
+public final class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    /**
+     * Asks all executions using this token to stop
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return whether cancel() has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,82 @@
+package org.khemritolya.functional;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts values to bytes and back, so they can be stored outside the Java heap. decode(encode(v)) has to equal v.
+ *
+ * @param <T> the type of the values
+ *
+ * @see PersistentMemoCache
+ */
+public interface Codec<T> {
+    /**
+     * @param value a non-null value
+     * @return the bytes representing the value
+     */
+    byte[] encode(T value);
+
+    /**
+     * @param bytes the bytes returned by encode()
+     * @return the value the bytes represent
+     */
+    T decode(byte[] bytes);
+
+    static Codec<Integer> ints() {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(Integer value) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+            }
+
+            @Override
+            public Integer decode(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getInt();
+            }
+        };
+    }
+
+    static Codec<Long> longs() {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            @Override
+            public Long decode(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getLong();
+            }
+        };
+    }
+
+    static Codec<String> strings() {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    static Codec<BigInteger> bigIntegers() {
+        return new Codec<>() {
+            @Override
+            public byte[] encode(BigInteger value) {
+                return value.toByteArray();
+            }
+
+            @Override
+            public BigInteger decode(byte[] bytes) {
+                return new BigInteger(bytes);
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package org.khemritolya.functional;
+
+/**
+ * Thrown by an execution which exceeded one of its ExecutionLimits
+ *
+ * @see ExecutionLimits
+ */
+public class ExecutionLimitException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The limit which was exceeded
+     */
+    public enum Reason {
+        DEPTH,
+        NODES,
+        DEADLINE,
+        CANCELLED
+    }
+
+    private final Reason reason;
+    /**
+     * Not serialized, so a deserialized exception has no counters
+     */
+    private final transient ExecutionStats stats;
+
+    ExecutionLimitException(Reason reason, String message, ExecutionStats stats) {
+        super(message);
+        this.reason = reason;
+        this.stats = stats;
+    }
+
+    /**
+     * @return the limit which was exceeded
+     */
+    public Reason reason() {
+        return reason;
+    }
+
+    /**
+     * @return the counters of the execution up to the point it was stopped, or null if this exception was
+     *         deserialized
+     */
+    public ExecutionStats stats() {
+        return stats;
+    }
+}
@@ -0,0 +1,126 @@
+package org.khemritolya.functional;
+
+import java.time.Duration;
+
+/**
+ * Immutable limits on how much an execution of a RecursiveFunction may do before it is stopped.
+ *
+ * Start from none() and add limits, for example {@code ExecutionLimits.none().maxDepth(10000).timeout(timeout)}.
+ * An execution exceeding a limit throws an ExecutionLimitException carrying its counters up to that point.
+ *
+ * @see RecursiveFunction#execute(Object, ExecutionLimits)
+ */
+public final class ExecutionLimits {
+    /**
+     * How many steps an execution takes between checks of its deadline and cancellation
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final ExecutionLimits NONE = new ExecutionLimits(Integer.MAX_VALUE, Long.MAX_VALUE,
+            Long.MAX_VALUE, null, false);
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long timeoutNanos;
+    private final CancellationToken cancellation;
+    private final boolean detectCycles;
+
+    private ExecutionLimits(int maxDepth, long maxNodes, long timeoutNanos, CancellationToken cancellation,
+                            boolean detectCycles) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.timeoutNanos = timeoutNanos;
+        this.cancellation = cancellation;
+        this.detectCycles = detectCycles;
+    }
+
+    /**
+     * @return limits which never stop an execution
+     */
+    public static ExecutionLimits none() {
+        return NONE;
+    }
+
+    /**
+     * @param maxDepth the most frames an execution may have on its callstack at once, not counting the calls kept
+     *                 on it only for an ExecutionProfiler
+     * @return these limits, limiting the depth of the callstack as well
+     */
+    public ExecutionLimits maxDepth(int maxDepth) {
+        if (maxDepth <= 0) throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        return new ExecutionLimits(maxDepth, maxNodes, timeoutNanos, cancellation, detectCycles);
+    }
+
+    /**
+     * @param maxNodes the most frames an execution may evaluate in total
+     * @return these limits, limiting the amount of evaluated frames as well
+     */
+    public ExecutionLimits maxNodes(long maxNodes) {
+        if (maxNodes <= 0) throw new IllegalArgumentException("maxNodes must be positive: " + maxNodes);
+        return new ExecutionLimits(maxDepth, maxNodes, timeoutNanos, cancellation, detectCycles);
+    }
+
+    /**
+     * @param timeout how long an execution may take, measured from its start
+     * @return these limits, limiting the wall time of an execution as well
+     */
+    public ExecutionLimits timeout(Duration timeout) {
+        if (timeout.isNegative()) throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        return new ExecutionLimits(maxDepth, maxNodes, timeout.toNanos(), cancellation, detectCycles);
+    }
+
+    /**
+     * @param cancellation a token which stops the execution once cancelled
+     * @return these limits, stopping an execution on cancellation as well
+     */
+    public ExecutionLimits cancellation(CancellationToken cancellation) {
+        return new ExecutionLimits(maxDepth, maxNodes, timeoutNanos, cancellation, detectCycles);
+    }
+
+    /**
+     * Makes the execution keep track of every call it is still evaluating, memoized or not, so that a call with
+     * the function and argument of one of them, which would never finish, throws a RecursionCycleException.
+     * Memoized functions always do so for their own calls. Like a memoized execution, the execution then keeps
+     * every call on its callstack until it is evaluated, so tail calls take room on the callstack too.
+     *
+     * @return these limits, stopping an execution on a cycle of calls as well
+     */
+    public ExecutionLimits detectCycles() {
+        return new ExecutionLimits(maxDepth, maxNodes, timeoutNanos, cancellation, true);
+    }
+
+    /**
+     * @return whether an execution keeps track of all the calls it is still evaluating
+     */
+    boolean detectsCycles() {
+        return detectCycles;
+    }
+
+    /**
+     * Checks an execution against these limits, called on every step of the execution
+     *
+     * @param stats the counters of the execution so far
+     * @param depth the current size of the callstack
+     * @throws ExecutionLimitException if a limit is exceeded
+     */
+    void check(ExecutionStats stats, int depth) {
+        if (depth > maxDepth)
+            throw new ExecutionLimitException(ExecutionLimitException.Reason.DEPTH,
+                    "maximum depth of " + maxDepth + " exceeded", stats.finish());
+
+        long nodes = stats.nodes();
+        if (nodes > maxNodes)
+            throw new ExecutionLimitException(ExecutionLimitException.Reason.NODES,
+                    "maximum of " + maxNodes + " evaluated nodes exceeded", stats.finish());
+
+        if (nodes % CHECK_INTERVAL != 1) return;
+
+        if (cancellation != null && cancellation.isCancelled())
+            throw new ExecutionLimitException(ExecutionLimitException.Reason.CANCELLED,
+                    "execution cancelled", stats.finish());
+
+        if (timeoutNanos != Long.MAX_VALUE && stats.nanos() > timeoutNanos)
+            throw new ExecutionLimitException(ExecutionLimitException.Reason.DEADLINE,
+                    "timeout of " + Duration.ofNanos(timeoutNanos) + " exceeded", stats.finish());
+    }
+}
@@ -0,0 +1,26 @@
+package org.khemritolya.functional;
+
+/**
+ * An interface which is notified of every execution of a RecursiveFunction, once it is over
+ *
+ * @see RecursiveFunction#withListener(ExecutionListener)
+ * @see ExecutionMetrics
+ */
+public interface ExecutionListener {
+    /**
+     * Called once an execution returned its result
+     *
+     * @param stats the counters of the execution
+     */
+    void executed(ExecutionStats stats);
+
+    /**
+     * Called once an execution threw, by default the same as executed()
+     *
+     * @param stats the counters of the execution up to the failure
+     * @param failure what the execution threw
+     */
+    default void failed(ExecutionStats stats, Throwable failure) {
+        executed(stats);
+    }
+}
@@ -0,0 +1,121 @@
+package org.khemritolya.functional;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ExecutionListener which adds up the counters of all executions it is notified of.
+ * Thread-safe, so it can be shared by executions running on many threads at once.
+ *
+ * Can be registered with the platform MBeanServer to export the totals over JMX.
+ *
+ * @see RecursiveFunction#withListener(ExecutionListener)
+ */
+public class ExecutionMetrics implements ExecutionListener, ExecutionMetricsMBean {
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder transforms = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicInteger maxIntermediates = new AtomicInteger();
+    private final LongAdder totalNanos = new LongAdder();
+
+    @Override
+    public void executed(ExecutionStats stats) {
+        executions.increment();
+        calls.add(stats.calls());
+        cacheHits.add(stats.cacheHits());
+        transforms.add(stats.transforms());
+        joins.add(stats.joins());
+        maxDepth.accumulateAndGet(stats.maxDepth(), Math::max);
+        maxIntermediates.accumulateAndGet(stats.maxIntermediates(), Math::max);
+        totalNanos.add(stats.nanos());
+    }
+
+    @Override
+    public void failed(ExecutionStats stats, Throwable failure) {
+        failures.increment();
+        executed(stats);
+    }
+
+    /**
+     * Registers these metrics with the platform MBeanServer
+     *
+     * @param name the name to register under, for example
+     *             {@code org.khemritolya.functional:type=RecursiveFunction,name=fibonacci}
+     * @return the registered name
+     * @throws IllegalArgumentException if the name is malformed or already registered
+     */
+    public ObjectName register(String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("could not register " + name, e);
+        }
+    }
+
+    @Override
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getTransforms() {
+        return transforms.sum();
+    }
+
+    @Override
+    public long getJoins() {
+        return joins.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public int getMaxIntermediates() {
+        return maxIntermediates.get();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public void reset() {
+        executions.reset();
+        failures.reset();
+        calls.reset();
+        cacheHits.reset();
+        transforms.reset();
+        joins.reset();
+        maxDepth.set(0);
+        maxIntermediates.set(0);
+        totalNanos.reset();
+    }
+}
@@ -0,0 +1,28 @@
+package org.khemritolya.functional;
+
+/**
+ * The JMX view of ExecutionMetrics
+ *
+ * @see ExecutionMetrics
+ */
+public interface ExecutionMetricsMBean {
+    long getExecutions();
+
+    long getFailures();
+
+    long getCalls();
+
+    long getCacheHits();
+
+    long getTransforms();
+
+    long getJoins();
+
+    int getMaxDepth();
+
+    int getMaxIntermediates();
+
+    long getTotalNanos();
+
+    void reset();
+}
@@ -0,0 +1,253 @@
+package org.khemritolya.functional;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An ExecutionListener which samples the calls of the executions it is notified of, to find out where an execution
+ * spends its time.
+ *
+ * Every interval-th call of an execution is sampled, recording its argument, the amount of calls its function
+ * returned (its fan-out), the depth of the callstack, and the arguments of the calls it is nested in. The arguments
+ * sampled most often are the ones most worth memoizing, and the nested arguments can be dumped as collapsed stacks
+ * for flame graph tools. Thread-safe, so it can be shared by executions running on many threads at once.
+ *
+ * While profiled, an execution keeps every call on its callstack until the call is evaluated, as a memoized one
+ * does, so tail calls take room on the callstack too. The calls kept only for the profiler are not counted in the
+ * depth of the execution its ExecutionStats report and its ExecutionLimits check, but are in the sampled depths.
+ * Arguments are recorded by their string representation, so the profile does not hold on to them.
+ *
+ * @see RecursiveFunction#withListener(ExecutionListener)
+ */
+public class ExecutionProfiler implements ExecutionListener {
+
+    /**
+     * Sampled stacks are cut down to this many of their innermost calls
+     */
+    static final int MAX_STACK_DEPTH = 32;
+
+    /**
+     * Arguments are counted as long as no more than this many distinct ones have been sampled, after which only
+     * the arguments already counted are, so the profile of a very large domain keeps a bounded size
+     */
+    private static final int MAX_ARGUMENTS = 4096;
+
+    /**
+     * Stacks are counted as long as no more than this many distinct ones have been sampled, after which only
+     * the stacks already counted are, so the profile of a recursion with very many paths keeps a bounded size
+     */
+    private static final int MAX_STACKS = 4096;
+
+    private static final int MAX_FAN_OUT = 16;
+
+    private final int interval;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+
+    private final Map<String, Long> arguments = new HashMap<>();
+    private final Map<String, Long> stacks = new HashMap<>();
+    private final long[] fanOuts = new long[MAX_FAN_OUT + 1];
+    private final long[] depths = new long[Integer.SIZE];
+    private long samples = 0;
+
+    /**
+     * Creates a profiler sampling every call
+     */
+    public ExecutionProfiler() {
+        this(1);
+    }
+
+    /**
+     * Creates a profiler sampling every interval-th call of an execution
+     *
+     * @param interval the amount of calls per sample
+     */
+    public ExecutionProfiler(int interval) {
+        if (interval <= 0) throw new IllegalArgumentException("interval must be positive: " + interval);
+        this.interval = interval;
+    }
+
+    /**
+     * @param calls the amount of calls of an execution so far
+     * @return whether the last of them should be sampled
+     */
+    boolean sampled(long calls) {
+        return calls % interval == 0;
+    }
+
+    /**
+     * Records a sampled call
+     *
+     * @param arg the argument of the call
+     * @param fanOut the amount of calls the function returned for the argument
+     * @param depth the size of the callstack
+     * @param stack the arguments of the calls the call is nested in, from the outermost to the call itself
+     * @param truncated whether stack was cut down to its innermost calls
+     */
+    synchronized void sample(Object arg, int fanOut, int depth, List<Object> stack, boolean truncated) {
+        samples++;
+
+        String key = String.valueOf(arg);
+        if (arguments.size() < MAX_ARGUMENTS || arguments.containsKey(key)) arguments.merge(key, 1L, Long::sum);
+
+        fanOuts[Math.min(fanOut, MAX_FAN_OUT)]++;
+        depths[Integer.SIZE - 1 - Integer.numberOfLeadingZeros(Math.max(depth, 1))]++;
+
+        StringBuilder collapsed = new StringBuilder(truncated ? "..." : "");
+        for (Object frame : stack) {
+            if (!collapsed.isEmpty()) collapsed.append(';');
+            collapsed.append(String.valueOf(frame).replace(';', ',').replace(' ', '_'));
+        }
+        String path = collapsed.toString();
+        if (stacks.size() < MAX_STACKS || stacks.containsKey(path)) stacks.merge(path, 1L, Long::sum);
+    }
+
+    @Override
+    public void executed(ExecutionStats stats) {
+        executions.increment();
+        calls.add(stats.calls());
+    }
+
+    /**
+     * @return the amount of executions profiled
+     */
+    public long executions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return the amount of calls of all executions profiled, sampled or not
+     */
+    public long calls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the amount of calls sampled
+     */
+    public synchronized long samples() {
+        return samples;
+    }
+
+    /**
+     * @param limit the maximum amount of arguments to return
+     * @return the string representations of the arguments sampled most often with how often they were sampled,
+     *         most often first
+     */
+    public synchronized List<Map.Entry<String, Long>> hotArguments(int limit) {
+        List<Map.Entry<String, Long>> hot = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : arguments.entrySet())
+            hot.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+
+        hot.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return hot.subList(0, Math.min(limit, hot.size()));
+    }
+
+    /**
+     * @return how many sampled calls returned each amount of calls, the last element counting all which returned
+     *         at least that many
+     */
+    public synchronized long[] fanOutHistogram() {
+        return fanOuts.clone();
+    }
+
+    /**
+     * @return how many sampled calls were made at each depth of the callstack, the element i counting depths from
+     *         2^i up to 2^(i + 1), the first one also counting depth 0
+     */
+    public synchronized long[] depthHistogram() {
+        return depths.clone();
+    }
+
+    /**
+     * Dumps the sampled stacks in the collapsed format read by flame graph tools such as flamegraph.pl or
+     * speedscope: one line per stack, holding the arguments of its calls separated by semicolons, followed by
+     * a space and the amount of times it was sampled. Only the first 4096 distinct stacks sampled are counted.
+     *
+     * @return the collapsed stacks
+     */
+    public synchronized String toCollapsedStacks() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Long> stack : stacks.entrySet())
+            out.append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+        return out.toString();
+    }
+
+    /**
+     * Dumps the profile as a JSON object
+     *
+     * @param limit the maximum amount of hot arguments to include
+     * @return the profile as JSON
+     */
+    public synchronized String toJson(int limit) {
+        StringBuilder out = new StringBuilder("{");
+        out.append("\"executions\":").append(executions()).append(',');
+        out.append("\"calls\":").append(calls()).append(',');
+        out.append("\"samples\":").append(samples).append(',');
+        out.append("\"interval\":").append(interval).append(',');
+
+        out.append("\"hotArguments\":[");
+        List<Map.Entry<String, Long>> hot = hotArguments(limit);
+        for (int i = 0; i < hot.size(); i++) {
+            if (i > 0) out.append(',');
+            out.append("{\"argument\":");
+            quote(out, hot.get(i).getKey());
+            out.append(",\"samples\":").append(hot.get(i).getValue()).append('}');
+        }
+        out.append("],");
+
+        out.append("\"fanOut\":");
+        array(out, fanOuts);
+        out.append(",\"depth\":");
+        array(out, depths);
+
+        return out.append('}').toString();
+    }
+
+    private static void array(StringBuilder out, long[] values) {
+        out.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.append(',');
+            out.append(values[i]);
+        }
+        out.append(']');
+    }
+
+    private static void quote(StringBuilder out, String value) {
+        out.append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Forgets everything sampled so far
+     */
+    public synchronized void reset() {
+        executions.reset();
+        calls.reset();
+        arguments.clear();
+        stacks.clear();
+        Arrays.fill(fanOuts, 0);
+        Arrays.fill(depths, 0);
+        samples = 0;
+    }
+}
@@ -0,0 +1,155 @@
+package org.khemritolya.functional;
+
+/**
+ * Counters describing what a single execution of a RecursiveFunction did.
+ *
+ * Only collected when the RecursiveFunction has an ExecutionListener, which receives them once the execution is over,
+ * or when the execution has ExecutionLimits, which are checked against them.
+ *
+ * @see ExecutionListener
+ * @see RecursiveFunction#withListener(ExecutionListener)
+ */
+public final class ExecutionStats {
+    private final long start = System.nanoTime();
+    private long nanos = -1;
+
+    private long nodes = 0;
+    private long calls = 0;
+    private long cacheHits = 0;
+    private long transforms = 0;
+    private long joins = 0;
+    private int maxDepth = 0;
+    private int maxIntermediates = 0;
+
+    /**
+     * Samples the calls counted by these counters, or null if the execution is not profiled
+     */
+    final ExecutionProfiler profiler;
+
+    /**
+     * @param listener the listener the counters are collected for, which samples the calls if it is a profiler
+     */
+    ExecutionStats(ExecutionListener listener) {
+        this.profiler = listener instanceof ExecutionProfiler ? (ExecutionProfiler) listener : null;
+    }
+
+    /**
+     * @return whether the last counted call should be sampled by the profiler
+     */
+    boolean sampled() {
+        return profiler != null && profiler.sampled(calls);
+    }
+
+    void call() {
+        calls++;
+    }
+
+    void cacheHit() {
+        cacheHits++;
+    }
+
+    void transform() {
+        transforms++;
+    }
+
+    void join() {
+        joins++;
+    }
+
+    /**
+     * Records a step of the evaluation, and the current sizes of the evaluation stacks
+     *
+     * @param depth the size of the callstack
+     * @param intermediates the size of the intermediates stack
+     */
+    void observe(int depth, int intermediates) {
+        nodes++;
+        if (depth > maxDepth) maxDepth = depth;
+        if (intermediates > maxIntermediates) maxIntermediates = intermediates;
+    }
+
+    /**
+     * Adds the counters of an evaluation which was forked off this one
+     *
+     * @param forked the counters of the forked evaluation
+     * @param depth the size of the callstack of this evaluation when the forked one started
+     * @param intermediates the size of the intermediates stack of this evaluation when the forked one started
+     */
+    void merge(ExecutionStats forked, int depth, int intermediates) {
+        nodes += forked.nodes;
+        calls += forked.calls;
+        cacheHits += forked.cacheHits;
+        transforms += forked.transforms;
+        joins += forked.joins;
+        maxDepth = Math.max(maxDepth, depth + forked.maxDepth);
+        maxIntermediates = Math.max(maxIntermediates, intermediates + forked.maxIntermediates);
+    }
+
+    ExecutionStats finish() {
+        nanos = System.nanoTime() - start;
+        return this;
+    }
+
+    /**
+     * @return the amount of frames taken off the callstack and evaluated
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the amount of times the function of the RecursiveFunction was applied to an argument
+     */
+    public long calls() {
+        return calls;
+    }
+
+    /**
+     * @return the amount of calls whose result was found in the memo cache instead
+     */
+    public long cacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * @return the amount of transformations applied, a fused chain of transformations counting as one
+     */
+    public long transforms() {
+        return transforms;
+    }
+
+    /**
+     * @return the amount of joins evaluated, a joinAll() or foldAll() counting as one
+     */
+    public long joins() {
+        return joins;
+    }
+
+    /**
+     * @return the highest amount of frames on the callstack at once
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the highest amount of intermediate results held at once
+     */
+    public int maxIntermediates() {
+        return maxIntermediates;
+    }
+
+    /**
+     * @return the wall time the execution took, in nanoseconds
+     */
+    public long nanos() {
+        return nanos >= 0 ? nanos : System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionStats{nodes=" + nodes + ", calls=" + calls + ", cacheHits=" + cacheHits + ", transforms=" + transforms
+                + ", joins=" + joins + ", maxDepth=" + maxDepth + ", maxIntermediates=" + maxIntermediates
+                + ", nanos=" + nanos() + "}";
+    }
+}
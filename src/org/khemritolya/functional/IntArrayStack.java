@@ -0,0 +1,27 @@
+package org.khemritolya.functional;
+
+import java.util.Arrays;
+
+/**
+ * An unsynchronized stack of {@code int} values backed by a growable array,
+ * used as the stack of intermediate results of primitive specialized recursive functions.
+ *
+ * @see ArrayStack
+ */
+final class IntArrayStack {
+    private int[] elements = new int[64];
+    private int size = 0;
+
+    void push(int element) {
+        if (size == elements.length) elements = Arrays.copyOf(elements, size << 1);
+        elements[size++] = element;
+    }
+
+    int pop() {
+        return elements[--size];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
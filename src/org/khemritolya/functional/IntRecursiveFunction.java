@@ -0,0 +1,266 @@
+package org.khemritolya.functional;
+
+/**
+ * A class representing a non-tail recursive function from {@code int} to {@code int},
+ * not bound by the Java recursion depth.
+ *
+ * A specialization of RecursiveFunction which never boxes its arguments, results or intermediate results.
+ *
+ * @see RecursiveFunction
+ * @see Function
+ * @see Result
+ * @see TransformFunction
+ * @see JoinFunction
+ */
+public class IntRecursiveFunction {
+
+    /**
+     * An interface which specifies how to recursively transform an argument into the result of the computation
+     *
+     * @see IntRecursiveFunction
+     * @see Result
+     */
+    public interface Function {
+        /**
+         * A function which when executed returns a lazily evaluatable result of the execution of this function
+         *
+         * @param function a reference to the IntRecursiveFunction which is the parent of this Function
+         *             allows for recursive calls using calls to func.call()
+         *             allows for returning lazily evaluateable results using calls to func.result()
+         * @param argument the argument of a particular recursive call
+         * @return a result, which can be lazily evaluated to a {@code int}
+         *
+         * @see Result
+         */
+        Result apply(IntRecursiveFunction function, int argument);
+    }
+
+    /**
+     * An interface which specifies how to transform the result of a lazy evaluation
+     *
+     * @see Result
+     */
+    public interface TransformFunction {
+        /**
+         * Transforms a result on lazy evaluation
+         *
+         * @param r a result to transform on evaluation
+         * @return the transformed result
+         */
+        int transform(int r);
+    }
+
+    /**
+     * An interface which specifies how to join two results of lazy evaluations
+     *
+     * @see Result
+     */
+    public interface JoinFunction {
+        /**
+         * Join two results on lazy evaluation
+         *
+         * @param r1 the first result
+         * @param r2 the second result
+         * @return the resultant result
+         */
+        int join(int r1, int r2);
+    }
+
+    /**
+     * An immutable recursive type, which represents the lazily evaluatable result of a recursive call.
+     *
+     * Not able to be instantiated or extended outside this file.
+     * Each kind of Result is its own subclass, holding only what that kind needs, and identified by an opcode
+     * which execute() dispatches on, as in RecursiveFunction.Result.
+     *
+     * @see RecursiveFunction.Result
+     */
+    public abstract static sealed class Result {
+        private static final int LEAF = 0;
+        private static final int CALL = 1;
+        private static final int TRANSFORM = 2;
+        private static final int JOIN = 3;
+
+        private final int op;
+
+        private Result(int op) {
+            this.op = op;
+        }
+
+        /**
+         * Transforms this Result into another Result by a specified transformation
+         *
+         * @param function a function specifying how the current result should be transformed on evaluation
+         * @return a result which contains the information to transform the result upon evaluation
+         */
+        public Result transform(TransformFunction function) {
+            return new Transform(this, function);
+        }
+
+        /**
+         * Joins this Result to another Result by a specified function
+         *
+         * @param other another result to join to this one
+         * @param function a function which specifies how the two results should be added upon evaluation
+         * @return a result which represents the union of this result and other
+         */
+        public Result join(Result other, JoinFunction function) {
+            return new Join(this, other, function);
+        }
+
+        /**
+         * An already computed {@code int}
+         */
+        private static final class Leaf extends Result {
+            private final int res;
+
+            private Leaf(int res) {
+                super(LEAF);
+                this.res = res;
+            }
+        }
+
+        /**
+         * A recursive call, evaluating to whatever its function returns for its argument
+         */
+        private static final class Call extends Result {
+            private final IntRecursiveFunction parent;
+            private final int arg;
+
+            private Call(IntRecursiveFunction parent, int arg) {
+                super(CALL);
+                this.parent = parent;
+                this.arg = arg;
+            }
+        }
+
+        /**
+         * A Result transformed by a function once it is evaluated
+         */
+        private static final class Transform extends Result {
+            private final Result prev;
+            private final TransformFunction function;
+
+            private Transform(Result prev, TransformFunction function) {
+                super(TRANSFORM);
+                this.prev = prev;
+                this.function = function;
+            }
+        }
+
+        /**
+         * Two Results joined by a function once both are evaluated
+         */
+        private static final class Join extends Result {
+            private final Result prev;
+            private final Result other;
+            private final JoinFunction function;
+
+            private Join(Result prev, Result other, JoinFunction function) {
+                super(JOIN);
+                this.prev = prev;
+                this.other = other;
+                this.function = function;
+            }
+        }
+    }
+
+    /**
+     * A function to evaluate for this recursive function
+     */
+    private final Function function;
+
+    /**
+     * Construct an immutable IntRecursiveFunction with the specified functional interface
+     *
+     * @param function a function to evaluate for this recursive function
+     * @see Function
+     */
+    public IntRecursiveFunction(Function function) {
+        this.function = function;
+    }
+
+    /**
+     * Provides a way to get the lazily evaluatable result of a recursive call
+     *
+     * @param args the arguments of the recursive call
+     * @return a result which can be evaluated to the result of the recursive call
+     */
+    public Result call(int args) {
+        return new Result.Call(this, args);
+    }
+
+    /**
+     * Provides a way to build a lazily evaluatable result from a result
+     *
+     * @param res a result
+     * @return a result which can be lazily evaluated to the specified result
+     */
+    public Result result(int res) {
+        return new Result.Leaf(res);
+    }
+
+    /**
+     * Executes the function with the provided arguments, and returns the result of the recursive call
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @return the result of evaluating the recursive function with the given arguments
+     */
+    public int execute(int args) {
+        ArrayStack<Object> callstack = ArrayStack.acquire();
+        IntArrayStack intermediates = new IntArrayStack();
+
+        try {
+            callstack.push(call(args));
+            int result = 0;
+            boolean evaluated = false;
+
+            while (!callstack.isEmpty()) {
+                Object frame = callstack.pop();
+
+                if (frame instanceof JoinFunction) {
+                    // the other side of a join has been evaluated
+                    result = ((JoinFunction) frame).join(intermediates.pop(), result);
+                    continue;
+                }
+
+                Result current = (Result) frame;
+
+                if (!evaluated) {
+                    switch (current.op) {
+                        case Result.LEAF -> {
+                            result = ((Result.Leaf) current).res;
+                            evaluated = true;
+                        }
+                        case Result.CALL -> {
+                            // replaced by whatever its function returns, so tail calls take no room on the callstack
+                            Result.Call call = (Result.Call) current;
+                            callstack.push(call.parent.function.apply(call.parent, call.arg));
+                        }
+                        case Result.TRANSFORM -> {
+                            callstack.push(current);
+                            callstack.push(((Result.Transform) current).prev);
+                        }
+                        default -> {
+                            callstack.push(current);
+                            callstack.push(((Result.Join) current).prev);
+                        }
+                    }
+                } else if (current.op == Result.TRANSFORM) {
+                    result = ((Result.Transform) current).function.transform(result);
+                } else {
+                    // the joined side has been evaluated, the other side is next
+                    Result.Join join = (Result.Join) current;
+                    intermediates.push(result);
+                    callstack.push(join.function);
+                    callstack.push(join.other);
+                    evaluated = false;
+                }
+            }
+
+            return result;
+        } finally {
+            ArrayStack.release(callstack);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.khemritolya.functional;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * A cache mapping arguments of a recursive function to their evaluated results.
+ *
+ * Used by memoized RecursiveFunctions to skip re-evaluating calls which have already been evaluated.
+ * Keeps track of how many lookups were hits and how many were misses.
+ *
+ * @param <A> the type of the argument to the recursive function
+ * @param <R> the return type of the recursive function
+ *
+ * @see RecursiveFunction#memoized(RecursiveFunction.Function)
+ */
+public abstract class MemoCache<A, R> {
+
+    /**
+     * Returned by lookup() when there is no cached result
+     */
+    static final Object MISSING = new Object();
+
+    /**
+     * Stored in place of null results, so that the backing storage can tell them apart from missing results
+     */
+    static final Object NULL = new Object();
+
+    /**
+     * Passed to the backing storage in place of null arguments, so that every backing storage can hold them
+     */
+    static final Object NULL_KEY = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Looks up the cached result of a call in the backing storage.
+     * Null arguments are passed as a placeholder object, so arg is never null.
+     *
+     * @param arg the argument of the call
+     * @return the cached result, or null if there is none
+     */
+    protected abstract R load(A arg);
+
+    /**
+     * Stores the result of a call in the backing storage.
+     * Null arguments and results are stored as placeholder objects, so neither arg nor res is ever null.
+     *
+     * @param arg the argument of the call
+     * @param res the result of the call
+     */
+    protected abstract void store(A arg, R res);
+
+    /**
+     * @return the amount of results currently held by this cache
+     */
+    public abstract int size();
+
+    /**
+     * Removes all cached results, leaving the hit and miss counters untouched
+     */
+    public abstract void clear();
+
+    /**
+     * @return whether executions running on many threads at once may share this cache
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Looks up the cached result of a call, counting the lookup as a hit or a miss
+     *
+     * @param arg the argument of the call
+     * @return the cached result, or null if there is none or the cached result is null
+     */
+    public final R get(A arg) {
+        Object res = lookup(arg);
+        return res == MISSING ? null : unchecked(res);
+    }
+
+    /**
+     * Looks up the cached result of a call, counting the lookup as a hit or a miss
+     *
+     * @param arg the argument of the call
+     * @return the cached result, which may be null, or MISSING if there is none
+     */
+    final Object lookup(A arg) {
+        R res = load(key(arg));
+        if (res == null) {
+            misses.increment();
+            return MISSING;
+        }
+
+        hits.increment();
+        return res == NULL ? null : res;
+    }
+
+    /**
+     * Caches the result of a call
+     *
+     * @param arg the argument of the call
+     * @param res the result of the call, which may be null
+     */
+    public final void put(A arg, R res) {
+        store(key(arg), res == null ? unchecked(NULL) : res);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A> A key(A arg) {
+        return arg == null ? (A) NULL_KEY : arg;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R unchecked(Object res) {
+        return (R) res;
+    }
+
+    /**
+     * @return the amount of lookups which found a cached result
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the amount of lookups which did not find a cached result
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Creates a cache which never evicts anything. Not thread-safe.
+     *
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return an empty unbounded cache
+     */
+    public static <A, R> MemoCache<A, R> unbounded() {
+        return new MapCache<>(new HashMap<>(), false);
+    }
+
+    /**
+     * Creates a cache which evicts the least recently used result once it holds more than maxSize results.
+     * Not thread-safe.
+     *
+     * @param maxSize the maximum amount of results to hold
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return an empty bounded cache
+     */
+    public static <A, R> MemoCache<A, R> lru(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+
+        return new MapCache<>(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<A, R> eldest) {
+                return size() > maxSize;
+            }
+        }, false);
+    }
+
+    /**
+     * Creates an unbounded cache which can be shared by executions running on many threads at once.
+     *
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return an empty thread-safe cache
+     */
+    public static <A, R> MemoCache<A, R> concurrent() {
+        return new MapCache<>(new ConcurrentHashMap<>(), true);
+    }
+
+    /**
+     * Creates a cache for arguments which map to integer indices, holding the results of the window most recent
+     * indices in a dense array. An index evicts the index window places before it, so window should be at least
+     * the distance between a call and the furthest call it depends on; calls which were evicted are evaluated again.
+     * Arguments whose index is below min are never cached. Not thread-safe.
+     *
+     * @param index maps an argument to its index, the same index meaning the same argument
+     * @param min the lowest index to cache
+     * @param window the amount of consecutive indices to hold
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return an empty dense cache
+     */
+    public static <A, R> MemoCache<A, R> dense(ToIntFunction<? super A> index, int min, int window) {
+        if (window <= 0) throw new IllegalArgumentException("window must be positive: " + window);
+        return new DenseCache<>(index, min, window);
+    }
+
+    /**
+     * A cache backed by a ring of arrays, indexed by the index of an argument
+     */
+    private static class DenseCache<A, R> extends MemoCache<A, R> {
+        private final ToIntFunction<? super A> index;
+        private final int min;
+
+        /**
+         * The index held by each slot, or min - 1 if the slot is empty
+         */
+        private final int[] indices;
+        private final Object[] results;
+
+        private DenseCache(ToIntFunction<? super A> index, int min, int window) {
+            this.index = index;
+            this.min = min;
+            this.indices = new int[window];
+            this.results = new Object[window];
+            Arrays.fill(indices, min - 1);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected R load(A arg) {
+            int i = index(arg);
+            if (i < min) return null;
+
+            int slot = (int) ((long) (i - min) % indices.length);
+            return indices[slot] == i ? (R) results[slot] : null;
+        }
+
+        @Override
+        protected void store(A arg, R res) {
+            int i = index(arg);
+            if (i < min) return;
+
+            int slot = (int) ((long) (i - min) % indices.length);
+            indices[slot] = i;
+            results[slot] = res;
+        }
+
+        private int index(A arg) {
+            return index.applyAsInt(arg == NULL_KEY ? null : arg);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int i : indices) if (i >= min) size++;
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(indices, min - 1);
+            Arrays.fill(results, null);
+        }
+    }
+
+    /**
+     * A cache backed by some Map
+     */
+    private static class MapCache<A, R> extends MemoCache<A, R> {
+        private final Map<A, R> map;
+        private final boolean threadSafe;
+
+        private MapCache(Map<A, R> map, boolean threadSafe) {
+            this.map = map;
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        protected R load(A arg) {
+            return map.get(arg);
+        }
+
+        @Override
+        protected void store(A arg, R res) {
+            map.put(arg, res);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return threadSafe;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.khemritolya.functional;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache which persists its results to a memory-mapped file, so that they survive restarts of the process.
+ *
+ * Opening the cache reads every result already in the file into memory. Every new result is then appended to the
+ * file as soon as it is stored, so a process which dies in the middle of an execution keeps the results it already
+ * evaluated. Arguments and results are converted to bytes by a Codec. Thread-safe.
+ *
+ * The file is a header followed by one record per result: the length of the encoded argument plus one (-1 for a null
+ * argument), the length of the encoded result (-1 for a null result), and the encoded bytes of both. A record is only complete once its first
+ * length is written, which happens last, so reading stops at the first incomplete or undecodable record, and at the
+ * zeroes following the last record.
+ *
+ * @param <A> the type of the argument to the recursive function
+ * @param <R> the return type of the recursive function
+ *
+ * @see RecursiveFunction#memoized(RecursiveFunction.Function, MemoCache)
+ */
+public final class PersistentMemoCache<A, R> extends MemoCache<A, R> implements Closeable {
+
+    private static final int MAGIC = 0x52464d43;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INITIAL_SIZE = 1 << 16;
+
+    /**
+     * The key length written for a null argument, which has no encoded bytes
+     */
+    private static final int NULL_KEY_LENGTH = -1;
+
+    private final Map<A, R> results = new ConcurrentHashMap<>();
+    private final FileChannel channel;
+    private final Codec<A> keys;
+    private final Codec<R> values;
+
+    private MappedByteBuffer file;
+
+    /**
+     * The position where the next record is written
+     */
+    private int end;
+
+    private PersistentMemoCache(FileChannel channel, Codec<A> keys, Codec<R> values) throws IOException {
+        this.channel = channel;
+        this.keys = keys;
+        this.values = values;
+        this.file = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+
+        if (file.getInt(0) == 0) {
+            file.putInt(0, MAGIC).putInt(Integer.BYTES, VERSION);
+        } else if (file.getInt(0) != MAGIC || file.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("not a memo cache file of version " + VERSION);
+        }
+
+        end = HEADER_SIZE;
+        while (read()) ;
+    }
+
+    /**
+     * Opens the cache persisted to a file, creating the file if it does not exist yet
+     *
+     * @param path the file to persist the results to
+     * @param keys the codec of the arguments
+     * @param values the codec of the results
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return a cache holding all the results persisted to the file so far
+     * @throws UncheckedIOException if the file cannot be opened or is not a cache file
+     */
+    public static <A, R> PersistentMemoCache<A, R> open(Path path, Codec<A> keys, Codec<R> values) {
+        FileChannel channel = null;
+
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new PersistentMemoCache<>(channel, keys, values);
+        } catch (IOException e) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the record at the end of the file into memory
+     *
+     * @return whether there was a complete record to read
+     */
+    @SuppressWarnings("unchecked")
+    private boolean read() {
+        if (end > file.capacity() - RECORD_HEADER_SIZE) return false;
+
+        int storedKeyLength = file.getInt(end);
+        int keyLength = storedKeyLength == NULL_KEY_LENGTH ? 0 : storedKeyLength - 1;
+        int valueLength = file.getInt(end + Integer.BYTES);
+        if (keyLength < 0 || valueLength < -1) return false;
+
+        long size = (long) RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        if (end + size > file.capacity()) return false;
+
+        try {
+            byte[] key = new byte[keyLength];
+            file.get(end + RECORD_HEADER_SIZE, key);
+            R value = (R) NULL;
+
+            if (valueLength >= 0) {
+                byte[] bytes = new byte[valueLength];
+                file.get(end + RECORD_HEADER_SIZE + keyLength, bytes);
+                value = values.decode(bytes);
+            }
+
+            results.put(storedKeyLength == NULL_KEY_LENGTH ? (A) NULL_KEY : keys.decode(key), value);
+        } catch (RuntimeException e) {
+            return false;
+        }
+
+        end += (int) size;
+        return true;
+    }
+
+    @Override
+    protected R load(A arg) {
+        return results.get(arg);
+    }
+
+    @Override
+    protected synchronized void store(A arg, R res) {
+        if (results.putIfAbsent(arg, res) == null) append(arg, res);
+    }
+
+    private void append(A arg, R res) {
+        byte[] key = arg == NULL_KEY ? new byte[0] : keys.encode(arg);
+        byte[] value = res == NULL ? null : values.encode(res);
+
+        int size = RECORD_HEADER_SIZE + key.length + (value == null ? 0 : value.length);
+
+        try {
+            if ((long) end + size + RECORD_HEADER_SIZE > file.capacity()) grow(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        file.putInt(end + Integer.BYTES, value == null ? -1 : value.length);
+        file.put(end + RECORD_HEADER_SIZE, key);
+        if (value != null) file.put(end + RECORD_HEADER_SIZE + key.length, value);
+
+        // a record torn by a crash may have left bytes behind this one, which must not read as the next record
+        file.putLong(end + size, 0L);
+        file.putInt(end, arg == NULL_KEY ? NULL_KEY_LENGTH : key.length + 1);
+
+        end += size;
+    }
+
+    private void grow(int size) throws IOException {
+        long capacity = Math.max((long) file.capacity() << 1, (long) end + size + RECORD_HEADER_SIZE);
+        if (capacity > Integer.MAX_VALUE) throw new IOException("memo cache file is full");
+
+        file.force();
+        file = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    @Override
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Removes all cached results, both from memory and from the file
+     */
+    @Override
+    public synchronized void clear() {
+        results.clear();
+
+        for (int i = HEADER_SIZE; i < end; i++) file.put(i, (byte) 0);
+        end = HEADER_SIZE;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Writes all results appended so far through to the storage device, so they also survive a crash of the
+     * operating system, not only of the process
+     */
+    public synchronized void flush() {
+        file.force();
+    }
+
+    /**
+     * Flushes the results and closes the file. The cache must not be used afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        file.force();
+        channel.close();
+    }
+}
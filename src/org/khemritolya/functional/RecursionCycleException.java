@@ -0,0 +1,29 @@
+package org.khemritolya.functional;
+
+import java.util.List;
+
+/**
+ * Thrown by the execution of a memoized function which called itself with an argument it was still evaluating,
+ * and so would never finish, or by an execution detecting cycles which made any such call
+ *
+ * @see RecursiveFunction#memoized(RecursiveFunction.Function)
+ * @see ExecutionLimits#detectCycles()
+ */
+public class RecursionCycleException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Object> cycle;
+
+    RecursionCycleException(List<Object> cycle) {
+        super("cycle in recursion: " + String.join(" -> ", cycle.stream().map(String::valueOf).toList()));
+        this.cycle = cycle;
+    }
+
+    /**
+     * @return the arguments of the calls forming the cycle, from the outermost to the innermost, followed by
+     *         the argument of the outermost again
+     */
+    public List<Object> cycle() {
+        return cycle;
+    }
+}
@@ -1,6 +1,31 @@
 package org.khemritolya.functional;
 
-import java.util.Stack;
+import java.lang.reflect.Array;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A class representing a non-tail recursive function not bound by the Java recursion depth.
@@ -76,10 +101,70 @@ public class RecursiveFunction<A, R> {
         Res join(Res r1, Res r2);
     }
 
+    /**
+     * An interface which specifies how to join any number of results of lazy evaluations
+     *
+     * @param <Res> the return type of the recursive function
+     *
+     * @see Result#joinAll(List, JoinAllFunction)
+     */
+    public interface JoinAllFunction<Res> {
+        /**
+         * Join objects of the type result on lazy evaluation
+         *
+         * @param results the objects of result type, in the order their Results were given
+         * @return the resultant object of type result
+         */
+        Res join(List<Res> results);
+    }
+
+    /**
+     * An interface which specifies how to turn the result of a lazy evaluation into an object of another type
+     *
+     * @param <From> the type of the result to turn
+     * @param <To> the type of the object it is turned into
+     *
+     * @see Result#map(MapFunction)
+     */
+    public interface MapFunction<From, To> {
+        /**
+         * Turns an object of one type into an object of another type on lazy evaluation
+         *
+         * @param r the object to turn
+         * @return the object it is turned into
+         */
+        To map(From r);
+    }
+
+    /**
+     * An interface which specifies how to join the results of two lazy evaluations into an object of another type
+     *
+     * @param <Left> the type of the first result
+     * @param <Right> the type of the second result
+     * @param <To> the type of the object they are joined into
+     *
+     * @see Result#combine(Result, CombineFunction)
+     */
+    public interface CombineFunction<Left, Right, To> {
+        /**
+         * Joins two objects into an object of another type on lazy evaluation
+         *
+         * @param r1 the first object
+         * @param r2 the second object
+         * @return the resultant object
+         */
+        To combine(Left r1, Right r2);
+    }
+
     /**
      * An immutable recursive type, which represents the lazily evaluatable result of a recursive call.
      *
-     * Not able to be instantiated outside this file using new.
+     * Not able to be instantiated or extended outside this file.
+     * Evaluation never modifies a Result, so the same Result can be evaluated any number of times,
+     * by any number of threads at once.
+     *
+     * Each kind of Result is its own subclass, holding only what that kind needs, and identified by an opcode
+     * which execute() dispatches on.
      *
      * @param <Arg> the type of the argument of the recursive function
      * @param <Res> the type of the returned object of the recursive function
@@ -92,74 +177,42 @@ public class RecursiveFunction<A, R> {
      * @see Function
      * @see TransformFunction
      * @see JoinFunction
+     * @see JoinAllFunction
      */
-    public static class Result<Arg, Res> {
-        private final Res res;
-
-        private final Arg arg;
-        private final Function<Arg, Res> recursiveFunction;
-        private final RecursiveFunction<Arg, Res> parent;
-
-        private final Result<Arg, Res> prev;
-        private final TransformFunction<Res> transformFunction;
-
-        private final Result<Arg, Res> other;
-        private final JoinFunction<Res> joinFunction;
-
-        private int visited = 0;
-
-        private Result(Res res) {
-            this.parent = null;
-            this.prev = null;
-            this.other = null;
-            this.res = res;
-            this.arg = null;
-            this.recursiveFunction = null;
-            this.transformFunction = null;
-            this.joinFunction = null;
-        }
-
-        private Result(RecursiveFunction<Arg, Res> parent, Arg arg, Function<Arg, Res> recursiveFunction) {
-            this.parent = parent;
-            this.res = null;
-            this.other = null;
-            this.prev = null;
-            this.arg = arg;
-            this.recursiveFunction = recursiveFunction;
-            this.transformFunction = null;
-            this.joinFunction = null;
-        }
-
-        private Result(Result<Arg, Res> prev, TransformFunction<Res> transformFunction) {
-            this.parent = null;
-            this.res = null;
-            this.other = null;
-            this.arg = null;
-            this.prev = prev;
-            this.recursiveFunction = null;
-            this.transformFunction = transformFunction;
-            this.joinFunction = null;
-        }
-
-        private Result(Result<Arg, Res> prev, Result<Arg, Res> other, JoinFunction<Res> joinFunction) {
-            this.parent = null;
-            this.other = other;
-            this.prev = prev;
-            this.res = null;
-            this.arg = null;
-            this.recursiveFunction = null;
-            this.transformFunction = null;
-            this.joinFunction = joinFunction;
+    public abstract static sealed class Result<Arg, Res> {
+        private static final int LEAF = 0;
+        private static final int CALL = 1;
+        private static final int TRANSFORM = 2;
+        private static final int JOIN = 3;
+        private static final int JOIN_ALL = 4;
+        private static final int FOLD_ALL = 5;
+        private static final int ASYNC = 6;
+
+        private final int op;
+
+        private Result(int op) {
+            this.op = op;
         }
 
         /**
-         * Transforms this Result into another Result by a specified transformation
+         * Transforms this Result into another Result by a specified transformation.
+         *
+         * An already computed Result is transformed right away, and a transformation of a transformation
+         * is fused with it into a single Result, applying the transformations in the order they were added.
          *
          * @param function a function specifying how the current result should be transformed on evaluation
          * @return a result which contains the information to transform the result upon evaluation
          */
         public Result<Arg, Res> transform(TransformFunction<Res> function) {
-            return new Result<>(this, function);
+            if (op == LEAF) return new Leaf<>(function.transform(((Leaf<Arg, Res>) this).res));
+
+            if (op == TRANSFORM) {
+                Transform<Arg, Res> transform = (Transform<Arg, Res>) this;
+                TransformFunction<Res> fused = FusedTransform.fuse(transform.function, function);
+                if (fused != null) return new Transform<>(transform.prev, fused);
+            }
+
+            return new Transform<>(this, function);
         }
 
         /**
@@ -170,7 +223,269 @@ public class RecursiveFunction<A, R> {
          * @return a result which represents the union of this result and other
          */
         public Result<Arg, Res> join(Result<Arg, Res> other, JoinFunction<Res> function) {
-            return new Result<>(this, other, function);
+            return new Join<>(this, other, function);
+        }
+
+        /**
+         * Joins this Result to another Result by a specified function which concatenates them, such as appending
+         * one list to another, so that the parts of the joined result are the parts of this one followed by the
+         * parts of the other.
+         *
+         * Evaluates the same as join(), but lets executeStream() return the two results as separate parts,
+         * without applying the function.
+         *
+         * @param other another result to append to this one
+         * @param function a function which concatenates the two results upon evaluation
+         * @return a result which represents the concatenation of this result and other
+         * @see RecursiveFunction#executeStream(Object)
+         */
+        public Result<Arg, Res> concat(Result<Arg, Res> other, JoinFunction<Res> function) {
+            return new Join<>(this, other, new Concat<>(function));
+        }
+
+        /**
+         * The function of a join created by concat(), whose sides executeStream() may return as separate parts
+         */
+        private static final class Concat<Res> implements JoinFunction<Res> {
+            private final JoinFunction<Res> function;
+
+            private Concat(JoinFunction<Res> function) {
+                this.function = function;
+            }
+
+            @Override
+            public Res join(Res r1, Res r2) {
+                return function.join(r1, r2);
+            }
+        }
+
+        /**
+         * Turns this Result into a Result of another type by a specified function.
+         *
+         * The loop evaluating Results does not look at their types, so a map is a transformation like any other,
+         * and the result of a recursive call can be carried through joins as any type, as long as the Result the
+         * function finally returns is of its return type again.
+         *
+         * @param function a function turning the current result into an object of another type on evaluation
+         * @param <T> the type of the object the result is turned into
+         * @return a result which contains the information to turn the result upon evaluation
+         * @see #transform(TransformFunction)
+         */
+        public <T> Result<Arg, T> map(MapFunction<? super Res, ? extends T> function) {
+            @SuppressWarnings("unchecked")
+            TransformFunction<T> transform = r -> function.map((Res) r);
+            return Result.<Arg, T>retyped(this).transform(transform);
+        }
+
+        /**
+         * Joins this Result to a Result of another type by a specified function, into a Result of a third type
+         *
+         * @param other another result to join to this one
+         * @param function a function which specifies how the two results should be joined upon evaluation
+         * @param <U> the type of the other result
+         * @param <T> the type of the object the results are joined into
+         * @return a result which represents the union of this result and other
+         * @see #map(MapFunction)
+         */
+        public <U, T> Result<Arg, T> combine(Result<Arg, U> other,
+                                             CombineFunction<? super Res, ? super U, ? extends T> function) {
+            return new Join<>(retyped(this), retyped(other), new Combine<>(function));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <Arg, T> Result<Arg, T> retyped(Result<Arg, ?> result) {
+            return (Result<Arg, T>) result;
+        }
+
+        /**
+         * The function of a join created by combine(), whose sides are not of the type it returns
+         */
+        private static final class Combine<Res> implements JoinFunction<Res> {
+            private final CombineFunction<Object, Object, ? extends Res> function;
+
+            @SuppressWarnings("unchecked")
+            private Combine(CombineFunction<?, ?, ? extends Res> function) {
+                this.function = (CombineFunction<Object, Object, ? extends Res>) function;
+            }
+
+            @Override
+            public Res join(Res r1, Res r2) {
+                return function.combine(r1, r2);
+            }
+        }
+
+        /**
+         * Joins any number of Results by a specified function, which receives all their results at once.
+         *
+         * Unlike nesting calls to join(), this evaluates all the Results with a single evaluation frame.
+         *
+         * @param results the results to join
+         * @param function a function which specifies how the results should be added upon evaluation
+         * @param <Arg> the type of the argument of the recursive function
+         * @param <Res> the type of the returned object of the recursive function
+         * @return a result which represents the union of the results
+         */
+        public static <Arg, Res> Result<Arg, Res> joinAll(List<Result<Arg, Res>> results,
+                                                          JoinAllFunction<Res> function) {
+            return new JoinAll<>(toArray(results), function);
+        }
+
+        /**
+         * Joins any number of Results by folding their results into an initial object, one after another
+         * in the order given, as each of them is evaluated.
+         *
+         * Unlike joinAll(), the results do not have to be held until all of them are evaluated.
+         *
+         * @param results the results to join
+         * @param initial the object to fold the first result into
+         * @param function a function which specifies how the folded object and the next result should be added
+         * @param <Arg> the type of the argument of the recursive function
+         * @param <Res> the type of the returned object of the recursive function
+         * @return a result which represents the union of the results
+         */
+        public static <Arg, Res> Result<Arg, Res> foldAll(List<Result<Arg, Res>> results, Res initial,
+                                                          JoinFunction<Res> function) {
+            return new FoldAll<>(toArray(results), initial, function);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <Arg, Res> Result<Arg, Res>[] toArray(List<Result<Arg, Res>> results) {
+            return results.toArray((Result<Arg, Res>[]) Array.newInstance(Result.class, results.size()));
+        }
+
+        /**
+         * An already computed object of type Res, which may be null
+         */
+        private static final class Leaf<Arg, Res> extends Result<Arg, Res> {
+            private final Res res;
+
+            private Leaf(Res res) {
+                super(LEAF);
+                this.res = res;
+            }
+        }
+
+        /**
+         * A recursive call, which evaluates to whatever the function of its parent returns for its argument
+         */
+        private static final class Call<Arg, Res> extends Result<Arg, Res> {
+            private final RecursiveFunction<Arg, Res> parent;
+            private final Arg arg;
+
+            private Call(RecursiveFunction<Arg, Res> parent, Arg arg) {
+                super(CALL);
+                this.parent = parent;
+                this.arg = arg;
+            }
+        }
+
+        private static final class Transform<Arg, Res> extends Result<Arg, Res> {
+            private final Result<Arg, Res> prev;
+            private final TransformFunction<Res> function;
+
+            private Transform(Result<Arg, Res> prev, TransformFunction<Res> function) {
+                super(TRANSFORM);
+                this.prev = prev;
+                this.function = function;
+            }
+        }
+
+        private static final class Join<Arg, Res> extends Result<Arg, Res> {
+            private final Result<Arg, Res> prev;
+            private final Result<Arg, Res> other;
+            private final JoinFunction<Res> function;
+
+            private Join(Result<Arg, Res> prev, Result<Arg, Res> other, JoinFunction<Res> function) {
+                super(JOIN);
+                this.prev = prev;
+                this.other = other;
+                this.function = function;
+            }
+        }
+
+        private static final class JoinAll<Arg, Res> extends Result<Arg, Res> {
+            private final Result<Arg, Res>[] all;
+            private final JoinAllFunction<Res> function;
+
+            private JoinAll(Result<Arg, Res>[] all, JoinAllFunction<Res> function) {
+                super(JOIN_ALL);
+                this.all = all;
+                this.function = function;
+            }
+        }
+
+        private static final class FoldAll<Arg, Res> extends Result<Arg, Res> {
+            private final Result<Arg, Res>[] all;
+            private final Res initial;
+            private final JoinFunction<Res> function;
+
+            private FoldAll(Result<Arg, Res>[] all, Res initial, JoinFunction<Res> function) {
+                super(FOLD_ALL);
+                this.all = all;
+                this.initial = initial;
+                this.function = function;
+            }
+        }
+
+        /**
+         * An object of type Res which is computed asynchronously
+         */
+        private static final class AsyncLeaf<Arg, Res> extends Result<Arg, Res> {
+            private final CompletableFuture<Res> future;
+
+            private AsyncLeaf(CompletableFuture<Res> future) {
+                super(ASYNC);
+                this.future = future;
+            }
+        }
+    }
+
+    /**
+     * A sequence of transformations applied one after another, which stands in for a chain of transform Results
+     *
+     * @param <Res> the return type of the recursive function
+     */
+    private static final class FusedTransform<Res> implements TransformFunction<Res> {
+        /**
+         * The most transformations fused together, which bounds the cost of copying them on every fusion
+         */
+        private static final int MAX_FUSED = 16;
+
+        private final TransformFunction<Res>[] functions;
+
+        private FusedTransform(TransformFunction<Res>[] functions) {
+            this.functions = functions;
+        }
+
+        /**
+         * Fuses two transformations
+         *
+         * @param first the transformation to apply first, possibly already fused
+         * @param then the transformation to apply second
+         * @param <Res> the return type of the recursive function
+         * @return the fused transformation, or null if first already fuses as many transformations as allowed
+         */
+        @SuppressWarnings("unchecked")
+        private static <Res> TransformFunction<Res> fuse(TransformFunction<Res> first, TransformFunction<Res> then) {
+            if (!(first instanceof FusedTransform)) {
+                TransformFunction<Res>[] pair = (TransformFunction<Res>[]) Array.newInstance(TransformFunction.class, 2);
+                pair[0] = first;
+                pair[1] = then;
+                return new FusedTransform<>(pair);
+            }
+
+            TransformFunction<Res>[] functions = ((FusedTransform<Res>) first).functions;
+            if (functions.length >= MAX_FUSED) return null;
+
+            TransformFunction<Res>[] fused = Arrays.copyOf(functions, functions.length + 1);
+            fused[functions.length] = then;
+            return new FusedTransform<>(fused);
+        }
+
+        @Override
+        public Res transform(Res r) {
+            for (TransformFunction<Res> function : functions) r = function.transform(r);
+            return r;
         }
     }
 
@@ -179,6 +494,21 @@ public class RecursiveFunction<A, R> {
      */
     private final Function<A, R> function;
 
+    /**
+     * Provides the fresh unbounded cache of every execution of memoized(Function)
+     */
+    private static final Supplier<MemoCache<?, ?>> UNBOUNDED = MemoCache::unbounded;
+
+    /**
+     * Provides the cache to memoize an execution with, or null if executions are not memoized
+     */
+    private final Supplier<? extends MemoCache<A, R>> memo;
+
+    /**
+     * Notified of every execution, or null if executions are not observed
+     */
+    private final ExecutionListener listener;
+
     /**
      * Construct an immutable RecursiveFunction with the specified functional interface
      *
@@ -186,7 +516,94 @@ public class RecursiveFunction<A, R> {
      * @see Function
      */
     public RecursiveFunction(Function<A, R> function) {
+        this(function, null, null);
+    }
+
+    private RecursiveFunction(Function<A, R> function, Supplier<? extends MemoCache<A, R>> memo,
+                              ExecutionListener listener) {
         this.function = function;
+        this.memo = memo;
+        this.listener = listener;
+    }
+
+    /**
+     * Construct a RecursiveFunction which caches the result of every call it evaluates,
+     * so that each distinct argument is only evaluated once per execution.
+     *
+     * Memoized functions keep track of the calls they are still evaluating, and a call with the argument of one of
+     * them, which would wait on itself forever, throws a RecursionCycleException naming the arguments of the cycle.
+     *
+     * @param function a function to evaluate for this recursive function
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return a memoized RecursiveFunction using a fresh unbounded cache for every execution
+     * @see MemoCache#unbounded()
+     */
+    public static <A, R> RecursiveFunction<A, R> memoized(Function<A, R> function) {
+        @SuppressWarnings("unchecked")
+        Supplier<MemoCache<A, R>> unbounded = (Supplier<MemoCache<A, R>>) (Supplier<?>) UNBOUNDED;
+        return new RecursiveFunction<>(function, unbounded, null);
+    }
+
+    /**
+     * Construct a RecursiveFunction which caches the result of every call it evaluates in the given cache.
+     * The cache is shared by all executions, so results computed by one execution are reused by the next.
+     *
+     * @param function a function to evaluate for this recursive function
+     * @param cache the cache shared by all executions
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return a memoized RecursiveFunction using the given cache
+     */
+    public static <A, R> RecursiveFunction<A, R> memoized(Function<A, R> function, MemoCache<A, R> cache) {
+        return new RecursiveFunction<>(function, () -> cache, null);
+    }
+
+    /**
+     * Construct a RecursiveFunction which caches the result of every call it evaluates,
+     * using a cache provided anew for every execution
+     *
+     * @param function a function to evaluate for this recursive function
+     * @param cacheSupplier provides the cache for each execution, for example {@code () -> MemoCache.lru(1024)}
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     * @return a memoized RecursiveFunction using the provided caches
+     */
+    public static <A, R> RecursiveFunction<A, R> memoized(Function<A, R> function,
+                                                          Supplier<? extends MemoCache<A, R>> cacheSupplier) {
+        return new RecursiveFunction<>(function, cacheSupplier, null);
+    }
+
+    /**
+     * Construct a RecursiveFunction which evaluates the same as this one, and notifies the given listener
+     * of the counters of every execution.
+     *
+     * Without a listener, no counters are collected at all.
+     *
+     * @param listener the listener to notify, or null to stop notifying a listener
+     * @return a RecursiveFunction notifying the given listener
+     * @see ExecutionMetrics
+     */
+    public RecursiveFunction<A, R> withListener(ExecutionListener listener) {
+        return new RecursiveFunction<>(function, memo, listener);
+    }
+
+    /**
+     * Provides the cache of an execution whose evaluations run on many threads at once. A function memoized with
+     * a fresh unbounded cache for every execution gets a concurrent one instead.
+     *
+     * @return the cache to share between the threads, or null if executions are not memoized
+     * @throws IllegalStateException if the function is memoized with a cache which is not thread-safe
+     */
+    private MemoCache<A, R> threadSafeCache() {
+        if (memo == null) return null;
+        if ((Object) memo == UNBOUNDED) return MemoCache.concurrent();
+
+        MemoCache<A, R> cache = memo.get();
+        if (!cache.isThreadSafe())
+            throw new IllegalStateException("parallel executions need a thread-safe cache, such as "
+                    + "MemoCache.concurrent()");
+        return cache;
     }
 
     /**
@@ -196,7 +613,75 @@ public class RecursiveFunction<A, R> {
      * @return a result which can be evaluated to the result of the recursive call
      */
     public Result<A, R> call(A args) {
-        return new Result<>(this, args, function);
+        return new Result.Call<>(this, args);
+    }
+
+    /**
+     * Provides a way to get the lazily evaluatable result of a call to another recursive function taking another
+     * type of argument, such as a mutually recursive one.
+     *
+     * The call is evaluated by the same loop as the calls of this function, so mutual recursions are no more bound
+     * by the Java recursion depth than plain ones. If this function is memoized, only its own calls are cached.
+     *
+     * @param other the recursive function to call
+     * @param args the arguments of the call
+     * @param <B> the type of the argument to the other recursive function
+     * @return a result which can be evaluated to the result of the call
+     */
+    public <B> Result<A, R> call(RecursiveFunction<B, R> other, B args) {
+        @SuppressWarnings("unchecked")
+        Result<A, R> call = (Result<A, R>) (Result<?, R>) other.call(args);
+        return call;
+    }
+
+    /**
+     * Provides a way to get the lazily evaluatable result of a call to another recursive function taking another
+     * type of argument and returning another type of result, turning its result into the result type of this one.
+     *
+     * @param other the recursive function to call
+     * @param args the arguments of the call
+     * @param function turns the result of the other function into a result of this one
+     * @param <B> the type of the argument to the other recursive function
+     * @param <S> the return type of the other recursive function
+     * @return a result which can be evaluated to the turned result of the call
+     * @see #call(RecursiveFunction, Object)
+     */
+    public <B, S> Result<A, R> call(RecursiveFunction<B, S> other, B args,
+                                    MapFunction<? super S, ? extends R> function) {
+        @SuppressWarnings("unchecked")
+        Result<A, S> call = (Result<A, S>) (Result<?, S>) other.call(args);
+        return call.map(function);
+    }
+
+    /**
+     * Provides a way to get the lazily evaluatable results of many recursive calls, joined together
+     *
+     * @param args the arguments of each recursive call
+     * @param function a function which specifies how the results should be added upon evaluation
+     * @return a result which can be evaluated to the joined results of the recursive calls
+     * @see Result#joinAll(List, JoinAllFunction)
+     */
+    public Result<A, R> callAll(Collection<? extends A> args, JoinAllFunction<R> function) {
+        return Result.joinAll(callEach(args), function);
+    }
+
+    /**
+     * Provides a way to get the lazily evaluatable results of many recursive calls, folded together
+     *
+     * @param args the arguments of each recursive call
+     * @param initial the object to fold the first result into
+     * @param function a function which specifies how the folded object and the next result should be added
+     * @return a result which can be evaluated to the folded results of the recursive calls
+     * @see Result#foldAll(List, Object, JoinFunction)
+     */
+    public Result<A, R> callAll(Collection<? extends A> args, R initial, JoinFunction<R> function) {
+        return Result.foldAll(callEach(args), initial, function);
+    }
+
+    private List<Result<A, R>> callEach(Collection<? extends A> args) {
+        List<Result<A, R>> calls = new ArrayList<>(args.size());
+        for (A arg : args) calls.add(call(arg));
+        return calls;
     }
 
     /**
@@ -206,7 +691,23 @@ public class RecursiveFunction<A, R> {
      * @return a result which can be lazily evaluated to the specified object
      */
     public Result<A, R> result(R res) {
-        return new Result<>(res);
+        return new Result.Leaf<>(res);
+    }
+
+    /**
+     * Provides a way to build a lazily evaluatable result from an object of return type which is computed
+     * asynchronously, for example by some slow lookup.
+     *
+     * executeAsync() suspends the execution until the future completes, instead of blocking a thread on it.
+     * The other ways of executing block until the future completes.
+     *
+     * @param future a future completing with an object of return type
+     * @return a result which can be lazily evaluated to the object the future completes with
+     * @see #executeAsync(Object, Executor)
+     */
+    public Result<A, R> resultAsync(CompletableFuture<R> future) {
+        if (future.isDone() && !future.isCompletedExceptionally()) return new Result.Leaf<>(future.join());
+        return new Result.AsyncLeaf<>(future);
     }
 
     /**
@@ -216,45 +717,873 @@ public class RecursiveFunction<A, R> {
      * @return the result of evaluating the recursive function with the given arguments
      */
     public R execute(A args) {
-        Stack<Result<A, R>> callstack = new Stack<>();
-        callstack.push(call(args));
+        return execute(args, null);
+    }
+
+    /**
+     * Executes the function with the provided arguments, and returns the result of the recursive call,
+     * unless the execution exceeds the given limits.
+     *
+     * Only this method checks limits: executeParallel(), executeAsync(), executeAll(), executeAllParallel(),
+     * executeStream() and executeBottomUp() run without any.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param limits the limits of the execution, or null for no limits
+     * @return the result of evaluating the recursive function with the given arguments
+     * @throws ExecutionLimitException if the execution exceeds the given limits
+     */
+    public R execute(A args, ExecutionLimits limits) {
+        ArrayStack<Object> callstack = ArrayStack.acquire();
+        ArrayStack<R> intermediates = ArrayStack.acquire();
+        ExecutionStats stats = listener == null && limits == null ? null : new ExecutionStats(listener);
+
+        try {
+            R result = evaluate(call(args), callstack, intermediates, memo == null ? null : memo.get(), null, stats,
+                    limits, false);
+            if (listener != null) listener.executed(stats.finish());
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (listener != null) listener.failed(stats.finish(), e);
+            throw e;
+        } finally {
+            ArrayStack.release(callstack);
+            ArrayStack.release(intermediates);
+        }
+    }
+
+    /**
+     * Executes the function with each of the provided arguments, and returns the results of the recursive calls.
+     *
+     * All the executions share their stacks, and the executions of a memoized function share the cache it would
+     * use for a single execution, so a call which was evaluated by one of them is not evaluated again by the others,
+     * be it a top level call or a recursive one. A function which is not memoized caches nothing, as in execute().
+     *
+     * @param args the initial arguments to pass to the recursive function
+     * @return the results of evaluating the recursive function with each argument, in the order of the arguments
+     */
+    public List<R> executeAll(Collection<? extends A> args) {
+        return executeAll(args.iterator(), args.size());
+    }
+
+    /**
+     * Executes the function with each of the provided arguments as the stream provides them,
+     * and returns the results of the recursive calls.
+     *
+     * @param args the initial arguments to pass to the recursive function
+     * @return the results of evaluating the recursive function with each argument, in the order of the arguments
+     * @see #executeAll(Collection)
+     */
+    public List<R> executeAll(Stream<? extends A> args) {
+        return executeAll(args.iterator(), 16);
+    }
+
+    private List<R> executeAll(Iterator<? extends A> args, int expectedSize) {
+        List<R> results = new ArrayList<>(expectedSize);
+        MemoCache<A, R> cache = memo == null ? null : memo.get();
+        ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+
+        ArrayStack<Object> callstack = ArrayStack.acquire();
+        ArrayStack<R> intermediates = ArrayStack.acquire();
+
+        try {
+            while (args.hasNext())
+                results.add(evaluate(call(args.next()), callstack, intermediates, cache, null, stats, null, false));
+            if (listener != null) listener.executed(stats.finish());
+            return results;
+        } catch (RuntimeException | Error e) {
+            if (listener != null) listener.failed(stats.finish(), e);
+            throw e;
+        } finally {
+            ArrayStack.release(callstack);
+            ArrayStack.release(intermediates);
+        }
+    }
+
+    /**
+     * Executes the function with the provided arguments bottom-up, for functions whose arguments map to a range of
+     * integer indices and which only call themselves with lower indices, such as fib(n) calling fib(n - 1) and
+     * fib(n - 2).
+     *
+     * Instead of descending from args, the function is evaluated for every index from min up to the index of args,
+     * keeping the results in a dense table. By the time an index is evaluated, the calls it makes are already in
+     * the table, so each step is a single application of the function, and the stacks never grow deeper than
+     * the calls one application makes. Calls to indices below min or outside the table are evaluated top-down.
+     * The cache of a memoized function is not used.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param index maps an argument to its index, the same index meaning the same argument
+     * @param argument maps an index back to its argument
+     * @param min the lowest index to evaluate
+     * @return the result of evaluating the recursive function with the given arguments
+     */
+    public R executeBottomUp(A args, ToIntFunction<? super A> index, IntFunction<? extends A> argument, int min) {
+        return executeBottomUp(args, index, argument, min, Math.max(index.applyAsInt(args) - min + 1, 1));
+    }
+
+    /**
+     * Executes the function with the provided arguments bottom-up, only keeping the results of the window most
+     * recent indices, so fib(n) runs in constant memory with a window of 2. A call to an index which was already
+     * evicted from the table is evaluated top-down again, so window should cover the furthest call back.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param index maps an argument to its index, the same index meaning the same argument
+     * @param argument maps an index back to its argument
+     * @param min the lowest index to evaluate
+     * @param window the amount of consecutive indices to keep the results of
+     * @return the result of evaluating the recursive function with the given arguments
+     * @see #executeBottomUp(Object, ToIntFunction, IntFunction, int)
+     * @see MemoCache#dense(ToIntFunction, int, int)
+     */
+    public R executeBottomUp(A args, ToIntFunction<? super A> index, IntFunction<? extends A> argument, int min,
+                             int window) {
+        int max = index.applyAsInt(args);
+        MemoCache<A, R> table = MemoCache.dense(index, min, window);
+        ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+
+        ArrayStack<Object> callstack = ArrayStack.acquire();
+        ArrayStack<R> intermediates = ArrayStack.acquire();
+
+        try {
+            for (int i = min; i < max; i++)
+                evaluate(call(argument.apply(i)), callstack, intermediates, table, null, stats, null, false);
+
+            R result = evaluate(call(args), callstack, intermediates, table, null, stats, null, false);
+            if (listener != null) listener.executed(stats.finish());
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (listener != null) listener.failed(stats.finish(), e);
+            throw e;
+        } finally {
+            ArrayStack.release(callstack);
+            ArrayStack.release(intermediates);
+        }
+    }
+
+    /**
+     * Executes the function with each of the provided arguments, spreading the arguments over the threads of
+     * the given pool, and returns the results of the recursive calls.
+     *
+     * As in executeAll(), the executions of a memoized function share a cache, which needs to be thread-safe
+     * as in executeParallel().
+     *
+     * @param args the initial arguments to pass to the recursive function
+     * @param pool the pool to evaluate in
+     * @return the results of evaluating the recursive function with each argument, in the order of the arguments
+     * @throws IllegalStateException if the function is memoized with a cache which is not thread-safe
+     * @see #executeAll(Collection)
+     * @see #executeParallel(Object, ForkJoinPool, int)
+     */
+    public List<R> executeAllParallel(Collection<? extends A> args, ForkJoinPool pool) {
+        List<A> list = new ArrayList<>(args);
+        Object[] results = new Object[list.size()];
+        MemoCache<A, R> cache = threadSafeCache();
+        ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+
+        int chunks = Math.min(list.size(), 4 * pool.getParallelism());
+        List<ForkJoinTask<ExecutionStats>> tasks = new ArrayList<>(chunks);
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) list.size() * chunk / chunks);
+            int to = (int) ((long) list.size() * (chunk + 1) / chunks);
+
+            tasks.add(pool.submit(() -> {
+                ExecutionStats chunkStats = stats == null ? null : new ExecutionStats(listener);
+                ArrayStack<Object> callstack = ArrayStack.acquire();
+                ArrayStack<R> intermediates = ArrayStack.acquire();
+
+                try {
+                    for (int i = from; i < to; i++)
+                        results[i] = evaluate(call(list.get(i)), callstack, intermediates, cache, null, chunkStats,
+                                null, false);
+                    return chunkStats;
+                } finally {
+                    ArrayStack.release(callstack);
+                    ArrayStack.release(intermediates);
+                }
+            }));
+        }
+
+        try {
+            for (ForkJoinTask<ExecutionStats> task : tasks) {
+                ExecutionStats chunkStats = task.join();
+                if (stats != null) stats.merge(chunkStats, 0, 0);
+            }
+            if (listener != null) listener.executed(stats.finish());
+        } catch (RuntimeException | Error e) {
+            for (ForkJoinTask<ExecutionStats> task : tasks) task.cancel(true);
+            if (listener != null) listener.failed(stats.finish(), e);
+            throw e;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<R> resultList = (List<R>) Arrays.asList(results);
+        return resultList;
+    }
+
+    /**
+     * Executes the function with the provided arguments in the given pool, evaluating both sides of joins
+     * concurrently near the top of the recursion, and returns the result of the recursive call.
+     *
+     * The sides of a join are evaluated concurrently until joins are nested a number of levels deep which
+     * allows a few tasks per thread of the pool; below that, evaluation is sequential as in execute().
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param pool the pool to evaluate in
+     * @return the result of evaluating the recursive function with the given arguments
+     * @see #executeParallel(Object, ForkJoinPool, int)
+     */
+    public R executeParallel(A args, ForkJoinPool pool) {
+        int parallelism = pool.getParallelism();
+        return executeParallel(args, pool, Integer.SIZE - Integer.numberOfLeadingZeros(parallelism) + 2);
+    }
+
+    /**
+     * Executes the function with the provided arguments in the given pool, evaluating both sides of joins
+     * concurrently until joins are nested forkDepth levels deep, and returns the result of the recursive call.
+     *
+     * The result is the same as the one of execute(), as the join functions still receive the result of
+     * the joined Result first and the result of the other Result second.
+     * A memoized function shares its cache between the concurrent evaluations of one execution, so it needs
+     * a thread-safe cache such as {@link MemoCache#concurrent()}. A function memoized with memoized(Function)
+     * gets a concurrent cache for the execution instead of its unbounded one.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param pool the pool to evaluate in
+     * @param forkDepth how many levels of nested joins to evaluate concurrently, 0 evaluates sequentially
+     * @return the result of evaluating the recursive function with the given arguments
+     * @throws IllegalStateException if the function is memoized with a cache which is not thread-safe
+     */
+    public R executeParallel(A args, ForkJoinPool pool, int forkDepth) {
+        if (forkDepth < 0) throw new IllegalArgumentException("forkDepth must not be negative: " + forkDepth);
+
+        ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+        EvaluationTask task = new EvaluationTask(call(args), threadSafeCache(), forkDepth, stats);
+
+        try {
+            R result = pool.invoke(task);
+            if (stats != null) listener.executed(stats.finish());
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (stats != null) listener.failed(stats.finish(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the function with the provided arguments without blocking on the futures of resultAsync(),
+     * and provides the result of the recursive call once it is evaluated.
+     *
+     * The execution runs on the given executor, and is suspended while waiting for a future of resultAsync()
+     * to complete, so no thread is blocked while it waits. It resumes on the executor once the future completes.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @param executor the executor to evaluate on
+     * @return a future completing with the result of evaluating the recursive function with the given arguments,
+     *         or exceptionally with whatever the evaluation or one of the futures it waited for threw
+     * @see #resultAsync(CompletableFuture)
+     */
+    public CompletableFuture<R> executeAsync(A args, Executor executor) {
+        CompletableFuture<R> promise = new CompletableFuture<>();
+        AsyncExecution execution = new AsyncExecution(call(args), promise, executor);
+
+        try {
+            executor.execute(execution);
+        } catch (RuntimeException e) {
+            promise.completeExceptionally(e);
+        }
+
+        return promise;
+    }
+
+    /**
+     * An execution of executeAsync(), run on its executor once to start and once more every time it resumes
+     */
+    private class AsyncExecution implements Runnable {
+        private final CompletableFuture<R> promise;
+        private final Executor executor;
+        private final MemoCache<A, R> cache = memo == null ? null : memo.get();
+        private final ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+
+        // not pooled, as the execution may move between threads
+        private final ArrayStack<Object> callstack = new ArrayStack<>(64);
+        private final ArrayStack<R> intermediates = new ArrayStack<>(64);
+
+        /**
+         * The result to evaluate on the next run, null when resuming
+         */
+        private Result<A, R> root;
+
+        private AsyncExecution(Result<A, R> root, CompletableFuture<R> promise, Executor executor) {
+            this.root = root;
+            this.promise = promise;
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                R result = evaluate(root, callstack, intermediates, cache, null, stats, null, true);
+                root = null;
+
+                if (callstack.isEmpty()) {
+                    if (listener != null) listener.executed(stats.finish());
+                    promise.complete(result);
+                } else {
+                    // suspended on the future of the async result on top of the callstack
+                    @SuppressWarnings("unchecked")
+                    Result.AsyncLeaf<A, R> pending = (Result.AsyncLeaf<A, R>) callstack.peek();
+                    pending.future.whenComplete((res, failure) -> {
+                        try {
+                            executor.execute(this);
+                        } catch (RuntimeException e) {
+                            fail(e);
+                        }
+                    });
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        private void fail(Throwable failure) {
+            if (listener != null) listener.failed(stats.finish(), failure);
+            promise.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Executes the function with the provided arguments lazily, returning the parts its result is joined from
+     * instead of the joined result.
+     *
+     * Calls and concatenations made by Result.concat() at the top of the result are taken apart instead of
+     * evaluated, and the stream returns the results they would have concatenated, from left to right, skipping the
+     * concatenating functions. Anything else, such as a join() or a transformed result, is evaluated into a single
+     * part, as its function may do anything with the results it joins. So for a function building a list by
+     * concatenating its head with the list built by a call on its tail, the stream returns the head of every call
+     * as soon as it is reached, without building the list.
+     *
+     * Each part is only evaluated once the stream is asked for it, so a slow consumer holds up the evaluation, and
+     * only the parts not yet taken apart are held in memory. The listener is notified once the stream is exhausted.
+     *
+     * @param args an initial argument to pass to the recursive function
+     * @return a sequential stream of the parts of the result of evaluating the recursive function
+     */
+    public Stream<R> executeStream(A args) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new StreamExecution(call(args)),
+                Spliterator.ORDERED), false);
+    }
+
+    /**
+     * An execution of executeStream(), taking apart the result one part at a time
+     */
+    private class StreamExecution implements Iterator<R> {
+        private final MemoCache<A, R> cache = memo == null ? null : memo.get();
+        private final ExecutionStats stats = listener == null ? null : new ExecutionStats(listener);
+
+        // not pooled, as the stream may be consumed on any thread and may never be exhausted
+        private final ArrayStack<Result<A, R>> parts = new ArrayStack<>(64);
+        private final ArrayStack<Object> callstack = new ArrayStack<>(64);
+        private final ArrayStack<R> intermediates = new ArrayStack<>(64);
+
+        private R next;
+        private boolean hasNext = false;
+        private boolean finished = false;
+
+        private StreamExecution(Result<A, R> root) {
+            parts.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext) return true;
+            if (finished) return false;
+
+            try {
+                hasNext = advance();
+            } catch (RuntimeException | Error e) {
+                finished = true;
+                if (listener != null) listener.failed(stats.finish(), e);
+                throw e;
+            }
+
+            if (!hasNext) {
+                finished = true;
+                if (listener != null) listener.executed(stats.finish());
+            }
+
+            return hasNext;
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            hasNext = false;
+            R res = next;
+            next = null;
+            return res;
+        }
+
+        /**
+         * Takes apart the results at the top of the parts stack until one of them is evaluated
+         *
+         * @return whether there is a next part
+         */
+        private boolean advance() {
+            while (!parts.isEmpty()) {
+                Result<A, R> current = parts.pop();
+
+                switch (current.op) {
+                    case Result.LEAF -> {
+                        next = ((Result.Leaf<A, R>) current).res;
+                        return true;
+                    }
+                    case Result.CALL -> {
+                        Result.Call<A, R> call = (Result.Call<A, R>) current;
+
+                        if (cache != null && call.parent == RecursiveFunction.this) {
+                            Object cached = cache.lookup(call.arg);
+                            if (cached != MemoCache.MISSING) {
+                                @SuppressWarnings("unchecked")
+                                R res = (R) cached;
+                                next = res;
+                                if (stats != null) stats.cacheHit();
+                                return true;
+                            }
+                        }
+
+                        parts.push(call.parent.function.apply(call.parent, call.arg));
+                        if (stats != null) stats.call();
+                    }
+                    case Result.JOIN -> {
+                        Result.Join<A, R> join = (Result.Join<A, R>) current;
+
+                        if (!(join.function instanceof Result.Concat)) {
+                            next = evaluate(current, callstack, intermediates, cache, null, stats, null, false);
+                            return true;
+                        }
+
+                        parts.push(join.other);
+                        parts.push(join.prev);
+                    }
+                    default -> {
+                        next = evaluate(current, callstack, intermediates, cache, null, stats, null, false);
+                        return true;
+                    }
+                }
+            }
 
-        Stack<R> intermediates = new Stack<>();
+            return false;
+        }
+    }
+
+    /**
+     * Records a sampled call with a profiler
+     *
+     * @param profiler the profiler to record the call with
+     * @param arg the argument of the call
+     * @param applied what the function returned for the argument
+     * @param callstack the callstack of the evaluation, with the calls in flight kept on it, the call being on top
+     */
+    private static void sample(ExecutionProfiler profiler, Object arg, Result<?, ?> applied,
+                               ArrayStack<Object> callstack) {
+        // the calls in what the function returned, without descending into them
+        int fanOut = 0;
+        ArrayStack<Result<?, ?>> pending = new ArrayStack<>(16);
+        pending.push(applied);
+
+        while (!pending.isEmpty()) {
+            Result<?, ?> result = pending.pop();
+            switch (result.op) {
+                case Result.CALL -> fanOut++;
+                case Result.TRANSFORM -> pending.push(((Result.Transform<?, ?>) result).prev);
+                case Result.JOIN -> {
+                    pending.push(((Result.Join<?, ?>) result).prev);
+                    pending.push(((Result.Join<?, ?>) result).other);
+                }
+                case Result.JOIN_ALL -> {
+                    for (Result<?, ?> r : ((Result.JoinAll<?, ?>) result).all) pending.push(r);
+                }
+                case Result.FOLD_ALL -> {
+                    for (Result<?, ?> r : ((Result.FoldAll<?, ?>) result).all) pending.push(r);
+                }
+                default -> { }
+            }
+        }
+
+        List<Object> stack = new ArrayList<>();
+        int i = callstack.size() - 1;
+        for (; i >= 0 && stack.size() < ExecutionProfiler.MAX_STACK_DEPTH; i--)
+            if (callstack.get(i) instanceof Result.Call<?, ?> call) stack.add(call.arg);
+
+        boolean truncated = false;
+        for (; i >= 0 && !truncated; i--) truncated = callstack.get(i) instanceof Result.Call;
+
+        Collections.reverse(stack);
+        profiler.sample(arg, fanOut, callstack.size(), stack, truncated);
+    }
+
+    /**
+     * Builds the exception for a call which waits on itself
+     *
+     * @param callstack the callstack of the evaluation, with the calls in flight kept on it
+     * @param repeated the call whose function and argument are already in flight
+     * @return the exception naming the arguments of the calls from the one in flight up to the repeated call
+     */
+    private static RecursionCycleException cycle(ArrayStack<Object> callstack, Result.Call<?, ?> repeated) {
+        List<Object> cycle = new ArrayList<>();
+        cycle.add(repeated.arg);
+
+        for (int i = callstack.size() - 1; i >= 0; i--) {
+            if (!(callstack.get(i) instanceof Result.Call<?, ?> call)) continue;
+
+            cycle.add(call.arg);
+            if (call.parent == repeated.parent && Objects.equals(call.arg, repeated.arg)) break;
+        }
+
+        Collections.reverse(cycle);
+        return new RecursionCycleException(cycle);
+    }
+
+    /**
+     * @param call a call kept on the callstack until it is evaluated
+     * @return the key of the call in the set of calls in flight
+     */
+    private static Map.Entry<RecursiveFunction<?, ?>, Object> inFlightKey(Result.Call<?, ?> call) {
+        return new AbstractMap.SimpleImmutableEntry<>(call.parent, call.arg);
+    }
+
+    /**
+     * Waits for the future of an async result
+     *
+     * @param future the future to wait for
+     * @return the object the future completed with
+     */
+    private R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluates a result using the given (empty) stacks, or resumes a suspended evaluation
+     *
+     * @param root the result to evaluate, or null to resume the evaluation suspended on the given stacks
+     * @param callstack the stack of results pending evaluation, and of the join functions of joins
+     *                  waiting for their other side
+     * @param intermediates the stack of evaluated left hand sides of joins
+     * @param cache the cache memoizing this evaluation, or null
+     * @param task the task forking the other sides of joins, or null to evaluate sequentially
+     * @param stats the counters to update, or null
+     * @param limits the limits to check the counters against, or null; if not null, neither is stats
+     * @param suspend whether to suspend on async results whose future is not done, instead of waiting
+     * @return the object the result evaluates to, unless the evaluation was suspended, in which case the
+     *         async result it was suspended on is left on top of the callstack
+     */
+    private R evaluate(Result<A, R> root, ArrayStack<Object> callstack, ArrayStack<R> intermediates,
+                       MemoCache<A, R> cache, EvaluationTask task, ExecutionStats stats, ExecutionLimits limits,
+                       boolean suspend) {
+        if (root != null) callstack.push(root);
+
+        // whether result holds the evaluation of the last popped result, as null is a valid result
         R result = null;
+        boolean evaluated = false;
+        int joinDepth = 0;
+
+        // the functions and arguments of the calls kept on the callstack until they are evaluated; a call already
+        // in there would wait on itself. Calls left on the callstack by an earlier evaluate() are not in there,
+        // which only delays finding a cycle through them until it comes around once more.
+        boolean detectCycles = limits != null && limits.detectsCycles();
+        Set<Map.Entry<RecursiveFunction<?, ?>, Object>> inFlight =
+                cache == null && !detectCycles ? null : new HashSet<>();
+
+        // a profiled evaluation keeps all calls on the callstack, so samples can tell which calls they are nested in;
+        // the calls kept only for that are not counted in the depth, so profiling does not change the depth an
+        // execution observes and is limited to. Calls kept by an earlier evaluate() are not known to be such calls.
+        boolean profiled = stats != null && stats.profiler != null;
+        int profiledCalls = 0;
+
+        while (!callstack.isEmpty()) {
+            if (stats != null) {
+                int depth = callstack.size() - profiledCalls;
+                stats.observe(depth, intermediates.size());
+                if (limits != null) limits.check(stats, depth);
+            }
+            Object frame = callstack.pop();
+
+            if (!(frame instanceof Result)) {
+                if (frame instanceof JoinFunction) {
+                    // the other side of a join has been evaluated
+                    @SuppressWarnings("unchecked")
+                    JoinFunction<R> joinFunction = (JoinFunction<R>) frame;
+                    joinDepth--;
+                    result = joinFunction.join(intermediates.pop(), result);
+                    if (stats != null) stats.join();
+                    continue;
+                }
+
+                // the next of the results joined by a joinAll() or foldAll() has been evaluated
+                @SuppressWarnings("unchecked")
+                JoinAllFrame<A, R> joinAll = (JoinAllFrame<A, R>) frame;
 
-        while (!callstack.empty()) {
-            Result<A, R> current = callstack.pop();
+                if (joinAll.joinAllFunction != null) intermediates.push(result);
+                else joinAll.folded = joinAll.foldFunction.join(joinAll.folded, result);
 
-            if (result == null) {
-                if (current.res != null) {
-                    result = current.res;
+                if (joinAll.next < joinAll.all.length) {
+                    callstack.push(joinAll);
+                    callstack.push(joinAll.all[joinAll.next++]);
+                    result = null;
+                    evaluated = false;
                 } else {
-                    callstack.push(current);
-                    if (current.recursiveFunction != null) {
-                        callstack.push(current.recursiveFunction.apply(current.parent, current.arg));
-                    } else if (current.prev != null) {
-                        callstack.push(current.prev);
+                    if (joinAll.joinAllFunction != null)
+                        result = joinAll.joinAllFunction.join(intermediates.popTo(joinAll.base));
+                    else
+                        result = joinAll.folded;
+                    if (stats != null) stats.join();
+                }
+                continue;
+            }
+
+            @SuppressWarnings("unchecked")
+            Result<A, R> current = (Result<A, R>) frame;
+
+            if (!evaluated) {
+                switch (current.op) {
+                    case Result.LEAF -> {
+                        result = ((Result.Leaf<A, R>) current).res;
+                        evaluated = true;
+                    }
+                    case Result.CALL -> {
+                        Result.Call<A, R> call = (Result.Call<A, R>) current;
+
+                        // calls to other functions are not cached, as their arguments may be of another type
+                        boolean memoized = cache != null && call.parent == this;
+                        boolean tracked = memoized || detectCycles;
+
+                        if (memoized) {
+                            // a memoized call need not be evaluated again
+                            Object cached = cache.lookup(call.arg);
+                            if (cached != MemoCache.MISSING) {
+                                @SuppressWarnings("unchecked")
+                                R res = (R) cached;
+                                result = res;
+                                evaluated = true;
+                                if (stats != null) stats.cacheHit();
+                                continue;
+                            }
+                        }
+
+                        if (tracked && !inFlight.add(inFlightKey(call))) throw cycle(callstack, call);
+
+                        // kept below what its function returns, so its result can be cached and cycles through it
+                        // can be named
+                        if (tracked || profiled) callstack.push(call);
+                        if (!tracked && profiled) profiledCalls++;
+
+                        // a call evaluates to whatever its function returns, so unless its result has to be
+                        // cached, it is tracked or it is profiled the call is replaced by that, and tail calls take
+                        // no room on the callstack
+                        Result<A, R> applied = call.parent.function.apply(call.parent, call.arg);
+                        if (stats != null) {
+                            stats.call();
+                            if (profiled && stats.sampled()) sample(stats.profiler, call.arg, applied, callstack);
+                        }
+                        callstack.push(applied);
+                    }
+                    case Result.TRANSFORM -> {
+                        callstack.push(current);
+                        callstack.push(((Result.Transform<A, R>) current).prev);
+                    }
+                    case Result.JOIN -> {
+                        Result.Join<A, R> join = (Result.Join<A, R>) current;
+                        callstack.push(join);
+                        if (task != null) task.fork(join, joinDepth);
+                        joinDepth++;
+                        callstack.push(join.prev);
                     }
+                    case Result.JOIN_ALL, Result.FOLD_ALL -> {
+                        JoinAllFrame<A, R> joinAll = new JoinAllFrame<>(current, intermediates.size());
+
+                        if (joinAll.all.length == 0) {
+                            result = joinAll.joinAllFunction != null
+                                    ? joinAll.joinAllFunction.join(Collections.emptyList()) : joinAll.folded;
+                            evaluated = true;
+                        } else {
+                            callstack.push(joinAll);
+                            callstack.push(joinAll.all[0]);
+                        }
+                    }
+                    case Result.ASYNC -> {
+                        CompletableFuture<R> future = ((Result.AsyncLeaf<A, R>) current).future;
+                        if (suspend && !future.isDone()) {
+                            callstack.push(current);
+                            return null;
+                        }
+
+                        result = await(future);
+                        evaluated = true;
+                    }
+                    default -> throw new RuntimeException("invalid state: op " + current.op);
                 }
             } else {
-                if (current.res != null) throw new RuntimeException("invalid state: res");
-
-                if (current.transformFunction != null) {
-                    result = current.transformFunction.transform(result);
-                } else if (current.joinFunction != null && current.visited == 0) {
-                    current.visited = 1;
-                    intermediates.push(result);
-                    callstack.push(current);
-                    callstack.push(current.other);
-                    result = null;
-                } else if (current.joinFunction != null && current.visited == 1) {
-                    current.visited = 2;
-                    result = current.joinFunction.join(intermediates.pop(), result);
-                } else if (current.joinFunction != null && current.visited > 1)
-                    throw new RuntimeException("invalid state: visited");
+                switch (current.op) {
+                    case Result.CALL -> {
+                        Result.Call<A, R> call = (Result.Call<A, R>) current;
+                        boolean memoized = cache != null && call.parent == this;
+                        if (memoized) cache.put(call.arg, result);
+
+                        if (memoized || detectCycles) inFlight.remove(inFlightKey(call));
+                        else if (profiledCalls > 0) profiledCalls--;
+                    }
+                    case Result.TRANSFORM -> {
+                        result = ((Result.Transform<A, R>) current).function.transform(result);
+                        if (stats != null) stats.transform();
+                    }
+                    case Result.JOIN -> {
+                        Result.Join<A, R> join = (Result.Join<A, R>) current;
+
+                        EvaluationTask fork = task == null ? null : task.popFork(join);
+                        if (fork != null) {
+                            joinDepth--;
+                            result = join.function.join(result, fork.join());
+                            if (stats != null) {
+                                stats.merge(fork.stats, callstack.size(), intermediates.size());
+                                stats.join();
+                            }
+                            continue;
+                        }
+
+                        intermediates.push(result);
+                        callstack.push(join.function);
+                        callstack.push(join.other);
+                        result = null;
+                        evaluated = false;
+                    }
+                    default -> throw new RuntimeException("invalid state: op " + current.op);
+                }
             }
         }
 
         return result;
     }
+
+    /**
+     * The state of evaluating the Results joined by a joinAll() or foldAll()
+     *
+     * @param <A> the type of the argument to the recursive function
+     * @param <R> the return type of the recursive function
+     */
+    private static final class JoinAllFrame<A, R> {
+        private final Result<A, R>[] all;
+
+        /**
+         * The function joining all results of a joinAll(), or null for a foldAll()
+         */
+        private final JoinAllFunction<R> joinAllFunction;
+
+        /**
+         * The function folding the results of a foldAll(), or null for a joinAll()
+         */
+        private final JoinFunction<R> foldFunction;
+
+        /**
+         * The size of the intermediates stack before the first of the joined results was pushed
+         */
+        private final int base;
+
+        /**
+         * The index of the next Result to evaluate
+         */
+        private int next = 1;
+
+        /**
+         * The results folded together so far
+         */
+        private R folded;
+
+        private JoinAllFrame(Result<A, R> result, int base) {
+            if (result.op == Result.JOIN_ALL) {
+                Result.JoinAll<A, R> joinAll = (Result.JoinAll<A, R>) result;
+                this.all = joinAll.all;
+                this.joinAllFunction = joinAll.function;
+                this.foldFunction = null;
+                this.folded = null;
+            } else {
+                Result.FoldAll<A, R> foldAll = (Result.FoldAll<A, R>) result;
+                this.all = foldAll.all;
+                this.joinAllFunction = null;
+                this.foldFunction = foldAll.function;
+                this.folded = foldAll.initial;
+            }
+            this.base = base;
+        }
+    }
+
+    /**
+     * A task evaluating a Result within a ForkJoinPool, which forks off the other sides of the joins it meets
+     * until joins are nested too deep. Never serialized, though ForkJoinTask is Serializable.
+     */
+    @SuppressWarnings("serial")
+    private class EvaluationTask extends RecursiveTask<R> {
+        private final Result<A, R> root;
+        private final MemoCache<A, R> cache;
+        private final int forkDepth;
+        private final ExecutionStats stats;
+
+        /**
+         * The join whose other side this task evaluates, or null for the root task
+         */
+        private Result<A, R> forkedJoin;
+
+        private final ArrayStack<EvaluationTask> forks = new ArrayStack<>(4);
+
+        private EvaluationTask(Result<A, R> root, MemoCache<A, R> cache, int forkDepth, ExecutionStats stats) {
+            this.root = root;
+            this.cache = cache;
+            this.forkDepth = forkDepth;
+            this.stats = stats;
+        }
+
+        /**
+         * Forks off the evaluation of the other side of a join, if joins are not yet nested too deep
+         *
+         * @param join the join about to be evaluated
+         * @param joinDepth the amount of joins in this task which are still being evaluated
+         */
+        private void fork(Result.Join<A, R> join, int joinDepth) {
+            if (joinDepth >= forkDepth) return;
+
+            EvaluationTask task = new EvaluationTask(join.other, cache, forkDepth - joinDepth - 1,
+                    stats == null ? null : new ExecutionStats(listener));
+            task.forkedJoin = join;
+            forks.push(task);
+            task.fork();
+        }
+
+        /**
+         * @param join a join whose joined side has been evaluated
+         * @return the task evaluating the other side of the join, or null if it was not forked off
+         */
+        private EvaluationTask popFork(Result<A, R> join) {
+            return !forks.isEmpty() && forks.peek().forkedJoin == join ? forks.pop() : null;
+        }
+
+        @Override
+        protected R compute() {
+            ArrayStack<Object> callstack = ArrayStack.acquire();
+            ArrayStack<R> intermediates = ArrayStack.acquire();
+
+            try {
+                return evaluate(root, callstack, intermediates, cache, this, stats, null, false);
+            } finally {
+                ArrayStack.release(callstack);
+                ArrayStack.release(intermediates);
+                while (!forks.isEmpty()) forks.pop().cancel(true);
+            }
+        }
+    }
 }
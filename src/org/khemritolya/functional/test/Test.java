@@ -1,8 +1,45 @@
 package org.khemritolya.functional.test;
 
+import org.khemritolya.functional.CancellationToken;
+import org.khemritolya.functional.Codec;
+import org.khemritolya.functional.DoubleRecursiveFunction;
+import org.khemritolya.functional.ExecutionLimitException;
+import org.khemritolya.functional.ExecutionLimits;
+import org.khemritolya.functional.ExecutionMetrics;
+import org.khemritolya.functional.ExecutionProfiler;
+import org.khemritolya.functional.ExecutionStats;
+import org.khemritolya.functional.IntRecursiveFunction;
+import org.khemritolya.functional.IntToLongRecursiveFunction;
+import org.khemritolya.functional.LongRecursiveFunction;
+import org.khemritolya.functional.MemoCache;
+import org.khemritolya.functional.PersistentMemoCache;
+import org.khemritolya.functional.RecursionCycleException;
 import org.khemritolya.functional.RecursiveFunction;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 public class Test {
     private static void assertEquals(Object a, Object b) {
@@ -14,7 +51,7 @@ public class Test {
         throw new RuntimeException("ERR: " + a + " not equals " + b);
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         RecursiveFunction<Integer, Integer> transformOrderTest1 = new RecursiveFunction<>(((func, a) -> {
             if (a <= 0) return func.result(0);
             else return func.call(a - 1)
@@ -39,6 +76,21 @@ public class Test {
             assertEquals(i, transformOrderTest2.execute(i));
         }
 
+        RecursiveFunction<Integer, Integer> transformOrderTest3 = new RecursiveFunction<>(((func, a) -> {
+            var result = a <= 0 ? func.result(a) : func.call(a - 1);
+            for (int i = 0; i < 100; i++) {
+                int k = i;
+                result = result.transform(v -> k % 3 == 0 ? v * 3 : v - k);
+            }
+            return result;
+        }));
+
+        int expectedChain = 0;
+        for (int i = 0; i < 100; i++) {
+            for (int k = 0; k < 100; k++) expectedChain = k % 3 == 0 ? expectedChain * 3 : expectedChain - k;
+            assertEquals(expectedChain, transformOrderTest3.execute(i));
+        }
+
         System.out.println("PASSED: transformOrder");
 
         RecursiveFunction<Integer, Integer> fib = new RecursiveFunction<>(((func, n) -> {
@@ -104,6 +156,59 @@ public class Test {
 
         System.out.println("PASSED: mTrip");
 
+        RecursiveFunction<Integer, Integer> tripAll = new RecursiveFunction<>(((func, n) -> {
+            if (n <= 1) return func.result(1);
+            return func.callAll(List.of(n - 1, n - 2, n - 3), 0, Integer::sum);
+        }));
+
+        RecursiveFunction<Integer, Integer> mTripAll = new RecursiveFunction<>(((func, n) -> {
+            if (n <= 1) return func.result(1);
+            return RecursiveFunction.Result.joinAll(List.of(
+                    func.call(n - 1).transform(v -> v * 2),
+                    func.call(n - 2).transform(v -> v / 2),
+                    func.call(n - 3)), results -> results.get(0) + results.get(1) + results.get(2) - 3);
+        }));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(trip(i), tripAll.execute(i));
+            assertEquals(mTrip(i), mTripAll.execute(i));
+        }
+
+        RecursiveFunction<Integer, String> order = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result("");
+            List<Integer> children = new ArrayList<>();
+            for (int i = 0; i < n; i++) children.add(n - 1 - i);
+            return func.callAll(children, "", (a, b) -> a + "(" + b + ")")
+                    .join(func.callAll(children, results -> String.join(",", results)), (a, b) -> n + a + "|" + b);
+        });
+
+        RecursiveFunction<Integer, String> nestedOrder = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result("");
+            var folded = func.result("");
+            for (int i = 0; i < n; i++) folded = folded.join(func.call(n - 1 - i), (a, b) -> a + "(" + b + ")");
+            var joinedAll = func.call(n - 1);
+            for (int i = 1; i < n; i++) joinedAll = joinedAll.join(func.call(n - 1 - i), (a, b) -> a + "," + b);
+            return folded.join(joinedAll, (a, b) -> n + a + "|" + b);
+        });
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(nestedOrder.execute(i), order.execute(i));
+        }
+
+        RecursiveFunction<Integer, Integer> wide = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result(1);
+            return func.callAll(Collections.nCopies(100, n - 1), 0, Integer::sum);
+        });
+
+        assertEquals(1000000, wide.execute(3));
+
+        RecursiveFunction<Integer, Integer> noChildren = new RecursiveFunction<>((func, n) ->
+                func.callAll(List.of(), n, Integer::sum).join(func.callAll(List.of(), List::size), Integer::sum));
+
+        assertEquals(5, noChildren.execute(5));
+
+        System.out.println("PASSED: joinAll");
+
         RecursiveFunction<List<Integer>, Boolean> isListPalindrome = new RecursiveFunction<>((func, list) -> {
             if (list.size() <= 1)
                 return func.result(false).transform(b -> !b);
@@ -146,6 +251,15 @@ public class Test {
         assertEquals(false, isIntegerPalindrome.execute(12437421));
         assertEquals(false, isIntegerPalindrome.execute(12992));
 
+        RecursiveFunction<Integer, Boolean> isEven = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result(true);
+            if (n == 1) return func.result(false);
+            return func.call(n - 2);
+        });
+
+        assertEquals(true, isEven.execute(20000000));
+        assertEquals(false, isEven.execute(20000001));
+
         System.out.println("PASSED: palindrome");
 
         RecursiveFunction<Integer, Integer> counter = new RecursiveFunction<>((func, n) -> {
@@ -223,10 +337,713 @@ public class Test {
         }
 
         System.out.println("PASSED: powers of 2");
+
+        RecursiveFunction<Integer, Long> memoFib = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 1) return func.result(1L);
+            return func.call(n - 1).join(func.call(n - 2), Long::sum);
+        });
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals((long) fib(i), memoFib.execute(i));
+        }
+
+        assertEquals(4660046610375530309L, memoFib.execute(90));
+
+        RecursiveFunction<Integer, Long> lruFib = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 1) return func.result(1L);
+            return func.call(n - 1).join(func.call(n - 2), Long::sum);
+        }, () -> MemoCache.lru(4));
+
+        assertEquals(4660046610375530309L, lruFib.execute(90));
+
+        MemoCache<Integer, Integer> shared = MemoCache.unbounded();
+        RecursiveFunction<Integer, Integer> sharedTrip = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 1) return func.result(1);
+            return func.call(n - 1).join(func.call(n - 2).join(func.call(n - 3), Integer::sum), Integer::sum);
+        }, shared);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(trip(i), sharedTrip.execute(i));
+        }
+
+        assertEquals(21, shared.size());
+        assertEquals(21L, shared.misses());
+        long hits = shared.hits();
+        assertEquals(trip(19), sharedTrip.execute(19));
+        assertEquals(hits + 1, shared.hits());
+
+        System.out.println("PASSED: memoized");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (int i = 0; i < 22; i++) {
+            assertEquals(fib(i), fib.executeParallel(i, pool));
+            assertEquals(mTrip(i), mTrip.executeParallel(i, pool, 6));
+            assertEquals(mTrip(i), mTrip2.executeParallel(i, pool, 0));
+        }
+
+        for (int i = 1; i < 5; i++) {
+            int lim = (int)Math.pow(2, i);
+            assertEquals(lim, strangeCounter.executeParallel(lim, pool));
+        }
+
+        RecursiveFunction<Integer, String> binary = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result("");
+            return func.call(n - 1).transform(s -> "(" + s).join(func.call(n - 2), (a, b) -> a + n + b + ")");
+        });
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals(binary.execute(i), binary.executeParallel(i, pool, 8));
+        }
+
+        assertEquals(100000, counter.executeParallel(100000, pool));
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals(memoFib.execute(i), memoFib.executeParallel(i, pool, 6));
+        }
+
+        MemoCache<Integer, Integer> concurrent = MemoCache.concurrent();
+        RecursiveFunction<Integer, Integer> concurrentTrip = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 1) return func.result(1);
+            return func.call(n - 1).join(func.call(n - 2).join(func.call(n - 3), Integer::sum), Integer::sum);
+        }, concurrent);
+
+        assertEquals(trip(19), concurrentTrip.executeParallel(19, pool, 6));
+        assertEquals(21, concurrent.size());
+
+        try {
+            sharedTrip.executeParallel(19, pool);
+            throw new RuntimeException("ERR: cache which is not thread-safe accepted");
+        } catch (IllegalStateException e) {
+            assertEquals("parallel executions need a thread-safe cache, such as MemoCache.concurrent()",
+                    e.getMessage());
+        }
+
+        // null arguments stand for missing subtrees, which the concurrent cache of a parallel execution holds too
+        RecursiveFunction<Integer, Integer> nullableSum = RecursiveFunction.memoized((func, n) -> {
+            if (n == null) return func.result(0);
+            return func.call(n > 1 ? n - 1 : null).join(func.call(n > 2 ? n - 2 : null), (a, b) -> a + b + n);
+        });
+
+        assertEquals(nullableSum.execute(20), nullableSum.executeParallel(20, pool, 6));
+        assertEquals(nullableSum.executeAll(List.of(5, 10)),
+                nullableSum.executeAllParallel(Arrays.asList(5, null, 10), pool).stream()
+                        .filter(v -> v != 0).collect(Collectors.toList()));
+
+        pool.shutdown();
+
+        System.out.println("PASSED: parallel");
+
+        RecursiveFunction<Integer, Integer> sharing = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result(0);
+            return func.call(n - 1).join(sharedResult, Integer::sum);
+        });
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 3, sharing.execute(i));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        List<Integer> sums = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) sums.add(sharing.execute(1000) - 3000);
+            }));
+        }
+
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        assertEquals(1600, sums.size());
+        assertEquals(0, sums.stream().mapToInt(Integer::intValue).sum());
+
+        System.out.println("PASSED: shared results");
+
+        IntRecursiveFunction intFib = new IntRecursiveFunction((func, n) -> {
+            if (n <= 1) return func.result(1);
+            return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+        });
+
+        IntRecursiveFunction intMTrip = new IntRecursiveFunction((func, n) -> {
+            if (n <= 1) return func.result(1);
+            var oneback = func.call(n - 1).transform(v -> v * 2);
+            var twoback = func.call(n - 2).transform(v -> v / 2);
+            var threeback = func.call(n - 3);
+            return oneback.join(twoback.join(threeback, Integer::sum), Integer::sum).transform(v -> v - 3);
+        });
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(fib(i), intFib.execute(i));
+            assertEquals(mTrip(i), intMTrip.execute(i));
+        }
+
+        IntRecursiveFunction intCounter = new IntRecursiveFunction((func, n) -> {
+            if (n <= 0) return func.result(0);
+            return func.call(n - 1).transform(v -> v + 1);
+        });
+
+        assertEquals(1000000, intCounter.execute(1000000));
+
+        LongRecursiveFunction longFactorial = new LongRecursiveFunction((func, n) -> {
+            if (n <= 1) return func.result(1L);
+            else return func.call(n - 1L).transform(v -> v * n);
+        });
+
+        long expected = 1;
+        for (int i = 1; i <= 20; i++) {
+            expected *= i;
+            assertEquals(expected, longFactorial.execute(i));
+        }
+
+        DoubleRecursiveFunction harmonic = new DoubleRecursiveFunction((func, n) -> {
+            if (n <= 0) return func.result(0.0);
+            return func.call(n - 1).transform(v -> v + 1 / n);
+        });
+
+        assertEquals(1.0 + 1 / 2.0 + 1 / 3.0 + 1 / 4.0, harmonic.execute(4));
+
+        IntToLongRecursiveFunction longFib = new IntToLongRecursiveFunction((func, n) -> {
+            if (n <= 1) return func.result(1L);
+            return func.call(n - 1).join(func.call(n - 2), Long::sum);
+        });
+
+        assertEquals((long) fib(25), longFib.execute(25));
+
+        System.out.println("PASSED: primitives");
+
+        RecursiveFunction<List<Integer>, Integer> firstNegative = new RecursiveFunction<>((func, list) -> {
+            if (list.isEmpty()) return func.result(null);
+            if (list.get(0) < 0) return func.result(list.get(0));
+            return func.call(list.subList(1, list.size()));
+        });
+
+        assertEquals(-3, firstNegative.execute(List.of(1, 2, -3, 4, -5)));
+        assertEquals(null, firstNegative.execute(List.of(1, 2, 3)));
+        assertEquals(null, firstNegative.execute(List.of()));
+
+        RecursiveFunction<Integer, String> nullJoin = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.result(null);
+            return func.call(n - 1).join(func.call(n - 2), (a, b) -> a == null ? b : a + b)
+                    .transform(v -> n % 3 == 0 ? v : (v == null ? "" : v) + n);
+        });
+
+        for (int i = 0; i < 12; i++) {
+            assertEquals(nullJoin.execute(i), nullJoin.executeParallel(i, ForkJoinPool.commonPool(), 3));
+        }
+
+        assertEquals(null, nullJoin.execute(0));
+
+        MemoCache<Integer, Integer> nullCache = MemoCache.unbounded();
+        RecursiveFunction<Integer, Integer> memoNull = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 0) return func.result(null);
+            return func.call(n - 1).join(func.call(n - 1), (a, b) -> a);
+        }, nullCache);
+
+        assertEquals(null, memoNull.execute(30));
+        assertEquals(31L, nullCache.misses());
+        assertEquals(30L, nullCache.hits());
+
+        System.out.println("PASSED: null results");
+
+        List<ExecutionStats> executions = new ArrayList<>();
+        RecursiveFunction<Integer, Integer> observedFib = fib.withListener(executions::add);
+
+        assertEquals(fib(10), observedFib.execute(10));
+        assertEquals(1, executions.size());
+        assertEquals((long) 2 * fib(10) - 1, executions.get(0).calls());
+        assertEquals((long) fib(10) - 1, executions.get(0).joins());
+        assertEquals(0L, executions.get(0).transforms());
+        assertEquals(5, executions.get(0).maxIntermediates());
+
+        assertEquals(fib(10), observedFib.executeParallel(10, ForkJoinPool.commonPool(), 4));
+        assertEquals(executions.get(0).calls(), executions.get(1).calls());
+        assertEquals(executions.get(0).joins(), executions.get(1).joins());
+
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        RecursiveFunction<Integer, Integer> measuredCounter = counter.withListener(metrics);
+        for (int i = 0; i < 10; i++) measuredCounter.execute(1000);
+
+        try {
+            measuredCounter.withListener(metrics).execute(null);
+        } catch (NullPointerException e) {
+            // counter cannot compare null
+        }
+
+        ObjectName name = metrics.register("org.khemritolya.functional:type=RecursiveFunction,name=counter");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(11L, server.getAttribute(name, "Executions"));
+            assertEquals(1L, server.getAttribute(name, "Failures"));
+            assertEquals(10010L, server.getAttribute(name, "Calls"));
+            assertEquals(10000L, server.getAttribute(name, "Transforms"));
+            assertEquals(1001, server.getAttribute(name, "MaxDepth"));
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+
+        System.out.println("PASSED: listeners");
+
+        assertEquals(1000, counter.execute(1000, ExecutionLimits.none().maxDepth(1001).maxNodes(5000)));
+        assertEquals(ExecutionLimitException.Reason.DEPTH,
+                limitReason(() -> counter.execute(1000, ExecutionLimits.none().maxDepth(500))));
+        assertEquals(ExecutionLimitException.Reason.NODES,
+                limitReason(() -> fib.execute(20, ExecutionLimits.none().maxNodes(1000))));
+
+        RecursiveFunction<Long, Long> forever = new RecursiveFunction<>((func, n) -> func.call(n + 1));
+        assertEquals(ExecutionLimitException.Reason.DEADLINE,
+                limitReason(() -> forever.execute(0L, ExecutionLimits.none().timeout(Duration.ofMillis(50)))));
+
+        CancellationToken token = new CancellationToken();
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            token.cancel();
+        }).start();
+        assertEquals(ExecutionLimitException.Reason.CANCELLED,
+                limitReason(() -> forever.execute(0L, ExecutionLimits.none().cancellation(token))));
+
+        try {
+            counter.execute(100000, ExecutionLimits.none().maxDepth(100));
+            throw new RuntimeException("ERR: limit not enforced");
+        } catch (ExecutionLimitException e) {
+            assertEquals(101, e.stats().maxDepth());
+            assertEquals(100L, e.stats().calls());
+        }
+
+        System.out.println("PASSED: limits");
+
+        ScheduledExecutorService lookups = Executors.newScheduledThreadPool(1);
+        ExecutorService evaluator = Executors.newSingleThreadExecutor();
+
+        RecursiveFunction<Integer, Integer> slowFib = new RecursiveFunction<>((func, n) -> {
+            if (n <= 1) {
+                CompletableFuture<Integer> lookup = new CompletableFuture<>();
+                lookups.schedule(() -> lookup.complete(1), 1, TimeUnit.MILLISECONDS);
+                return func.resultAsync(lookup).transform(v -> v * 3);
+            }
+            return func.call(n - 1).join(func.call(n - 2), Integer::sum);
+        });
+
+        List<CompletableFuture<Integer>> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) pending.add(slowFib.executeAsync(i % 10, evaluator));
+        for (int i = 0; i < 100; i++) assertEquals(3 * fib(i % 10), pending.get(i).join());
+
+        assertEquals(3 * fib(8), slowFib.execute(8));
+
+        RecursiveFunction<Integer, Integer> failing = new RecursiveFunction<>((func, n) -> {
+            if (n <= 0) return func.resultAsync(CompletableFuture.supplyAsync(() -> {
+                throw new IllegalStateException("lookup failed");
+            }, lookups));
+            return func.call(n - 1).transform(v -> v + 1);
+        });
+
+        try {
+            failing.executeAsync(5, evaluator).join();
+            throw new RuntimeException("ERR: failure not propagated");
+        } catch (CompletionException e) {
+            assertEquals(IllegalStateException.class, e.getCause().getClass());
+        }
+
+        try {
+            failing.execute(5);
+            throw new RuntimeException("ERR: failure not propagated");
+        } catch (IllegalStateException e) {
+            assertEquals("lookup failed", e.getMessage());
+        }
+
+        lookups.shutdown();
+        evaluator.shutdown();
+
+        System.out.println("PASSED: async");
+
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) batch.add(i % 20);
+
+        List<ExecutionStats> batchStats = new ArrayList<>();
+        List<Integer> batchResults = fib.withListener(batchStats::add).executeAll(batch);
+        assertEquals(30, batchResults.size());
+        for (int i = 0; i < 30; i++) assertEquals(fib(i % 20), batchResults.get(i));
+        long batchCalls = 0;
+        for (int i = 0; i < 30; i++) batchCalls += 2 * fib(i % 20) - 1;
+        assertEquals(batchCalls, batchStats.get(0).calls());
+
+        memoFib.withListener(batchStats::add).executeAll(batch);
+        assertEquals(20L, batchStats.get(1).calls());
+
+        assertEquals(batchResults, fib.executeAll(batch.stream()));
+        assertEquals(batchResults, fib.executeAllParallel(batch, ForkJoinPool.commonPool()));
+        assertEquals(batchResults, memoFib.executeAll(batch).stream().map(Long::intValue).collect(Collectors.toList()));
+        assertEquals(memoFib.executeAll(batch), memoFib.executeAllParallel(batch, ForkJoinPool.commonPool()));
+        assertEquals(List.of(), fib.executeAllParallel(List.of(), ForkJoinPool.commonPool()));
+
+        System.out.println("PASSED: batch");
+
+        RecursiveFunction<Integer, Long> slowLongFib = new RecursiveFunction<>((func, n) -> {
+            if (n <= 1) return func.result(1L);
+            return func.call(n - 1).join(func.call(n - 2), Long::sum);
+        });
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals((long) fib(i), slowLongFib.executeBottomUp(i, n -> n, n -> n, 0));
+            assertEquals((long) fib(i), slowLongFib.executeBottomUp(i, n -> n, n -> n, 0, 2));
+        }
+
+        List<ExecutionStats> bottomUpStats = new ArrayList<>();
+        assertEquals(4660046610375530309L,
+                slowLongFib.withListener(bottomUpStats::add).executeBottomUp(90, n -> n, n -> n, 0, 2));
+        assertEquals(91L, bottomUpStats.get(0).calls());
+        assertEquals(178L, bottomUpStats.get(0).cacheHits());
+
+        for (int i = 0; i < 15; i++) {
+            assertEquals(trip(i), trip.executeBottomUp(i, n -> n, n -> n, 0, 3));
+            assertEquals(trip(i), trip.executeBottomUp(i, n -> n, n -> n, 0, 1));
+            assertEquals(mTrip(i), mTrip.executeBottomUp(i, n -> n, n -> n, -2));
+        }
+
+        assertEquals(fact(12), factorial.executeBottomUp(12, n -> n, n -> n, 1, 1));
+        assertEquals(1, factorial.executeBottomUp(-5, n -> n, n -> n, 1, 1));
+
+        MemoCache<Integer, Integer> dense = MemoCache.dense(n -> n, 0, 2);
+        dense.put(0, 0);
+        dense.put(1, 1);
+        dense.put(2, 2);
+        assertEquals(null, dense.get(0));
+        assertEquals(2, dense.get(2));
+        assertEquals(2, dense.size());
+
+        System.out.println("PASSED: bottom-up");
+
+        RecursiveFunction.Function<Integer, Long> fibFunction = (func, n) -> {
+            if (n <= 1) return func.result(1L);
+            return func.call(n - 1).join(func.call(n - 2), Long::sum);
+        };
+
+        Path memoFile = Files.createTempFile("fib", ".memo");
+
+        try (PersistentMemoCache<Integer, Long> persisted = PersistentMemoCache.open(memoFile,
+                Codec.ints(), Codec.longs())) {
+            assertEquals(4660046610375530309L, RecursiveFunction.memoized(fibFunction, persisted).execute(90));
+            assertEquals(91, persisted.size());
+        }
+
+        try (PersistentMemoCache<Integer, Long> persisted = PersistentMemoCache.open(memoFile,
+                Codec.ints(), Codec.longs())) {
+            assertEquals(91, persisted.size());
+            assertEquals(4660046610375530309L, persisted.get(90));
+
+            List<ExecutionStats> warmStats = new ArrayList<>();
+            RecursiveFunction<Integer, Long> warmFib = RecursiveFunction.memoized(fibFunction, persisted);
+            assertEquals(4660046610375530309L, warmFib.withListener(warmStats::add).execute(90));
+            assertEquals(0L, warmStats.get(0).calls());
+
+            // grows the file past its initial mapping
+            for (int i = 0; i < 10000; i++) persisted.put(-i - 1, (long) i);
+        }
+
+        try (PersistentMemoCache<Integer, Long> persisted = PersistentMemoCache.open(memoFile,
+                Codec.ints(), Codec.longs())) {
+            assertEquals(10091, persisted.size());
+            assertEquals(9999L, persisted.get(-10000));
+            persisted.clear();
+        }
+
+        try (PersistentMemoCache<String, String> persisted = PersistentMemoCache.open(memoFile,
+                Codec.strings(), Codec.strings())) {
+            assertEquals(0, persisted.size());
+            persisted.put("null", null);
+            persisted.put("one", "1");
+            persisted.put("", "");
+            persisted.put(null, "none");
+        }
+
+        try (PersistentMemoCache<String, String> persisted = PersistentMemoCache.open(memoFile,
+                Codec.strings(), Codec.strings())) {
+            assertEquals(4, persisted.size());
+            assertEquals(null, persisted.get("null"));
+            assertEquals(1L, persisted.hits());
+            assertEquals("1", persisted.get("one"));
+            assertEquals("", persisted.get(""));
+            assertEquals("none", persisted.get(null));
+        }
+
+        Files.delete(memoFile);
+
+        System.out.println("PASSED: persistent memo");
+
+        AtomicInteger rangeCalls = new AtomicInteger();
+        RecursiveFunction<Integer, List<Integer>> range = new RecursiveFunction<>((func, n) -> {
+            rangeCalls.incrementAndGet();
+            if (n < 0) return func.result(List.of());
+            return func.result(List.of(n)).concat(func.call(n - 1), (a, b) -> {
+                List<Integer> joined = new ArrayList<>(a);
+                joined.addAll(b);
+                return joined;
+            });
+        });
+
+        assertEquals(range.execute(5), range.executeStream(5).flatMap(List::stream).collect(Collectors.toList()));
+
+        rangeCalls.set(0);
+        assertEquals(List.of(List.of(1000000), List.of(999999), List.of(999998)),
+                range.executeStream(1000000).limit(3).collect(Collectors.toList()));
+        assertEquals(3, rangeCalls.get());
+
+        assertEquals(500000500000L, range.executeStream(1000000).flatMap(List::stream).mapToLong(i -> i).sum());
+
+        assertEquals(List.of(fib(10)), fib.executeStream(10).collect(Collectors.toList()));
+
+        RecursiveFunction<Integer, String> reversed = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result("");
+            return func.result(String.valueOf(n)).join(func.call(n - 1), (x, y) -> y + x);
+        });
+        assertEquals("12345", reversed.execute(5));
+        assertEquals(List.of("12345"), reversed.executeStream(5).collect(Collectors.toList()));
+
+        RecursiveFunction<Integer, String> digitString = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result("");
+            return func.result(String.valueOf(n)).concat(func.call(n - 1), String::concat);
+        });
+        assertEquals("54321", digitString.execute(5));
+        assertEquals(List.of("5", "4", "3", "2", "1", ""), digitString.executeStream(5).collect(Collectors.toList()));
+        assertEquals(List.of(fact(5)), factorial.executeStream(5).collect(Collectors.toList()));
+
+        RecursiveFunction<Integer, Integer> folded = new RecursiveFunction<>((func, n) ->
+                n == 0 ? func.callAll(List.of(1, 2, 3), 10, Integer::sum) : func.result(n));
+        assertEquals(16, folded.execute(0));
+        assertEquals(List.of(16), folded.executeStream(0).collect(Collectors.toList()));
+
+        List<ExecutionStats> streamStats = new ArrayList<>();
+        Iterator<Integer> fibParts = fib.withListener(streamStats::add).executeStream(5).iterator();
+        while (fibParts.hasNext()) {
+            assertEquals(0, streamStats.size());
+            fibParts.next();
+        }
+        assertEquals(false, fibParts.hasNext());
+        assertEquals(1, streamStats.size());
+        assertEquals(15L, streamStats.get(0).calls());
+
+        System.out.println("PASSED: stream");
+
+        RecursiveFunction<Integer, Integer> cyclic = RecursiveFunction.memoized((func, n) -> {
+            if (n == 0) return func.call(3);
+            return func.call(n - 1).transform(v -> v + 1);
+        });
+
+        try {
+            cyclic.execute(5);
+            throw new RuntimeException("ERR: cycle not detected");
+        } catch (RecursionCycleException e) {
+            assertEquals(List.of(3, 2, 1, 0, 3), e.cycle());
+            assertEquals("cycle in recursion: 3 -> 2 -> 1 -> 0 -> 3", e.getMessage());
+        }
+
+        RecursiveFunction<Integer, Integer> selfCall = RecursiveFunction.memoized(RecursiveFunction::call);
+
+        try {
+            selfCall.execute(7);
+            throw new RuntimeException("ERR: cycle not detected");
+        } catch (RecursionCycleException e) {
+            assertEquals(List.of(7, 7), e.cycle());
+        }
+
+        try {
+            cyclic.executeParallel(5, ForkJoinPool.commonPool());
+            throw new RuntimeException("ERR: cycle not detected");
+        } catch (RecursionCycleException e) {
+            assertEquals(List.of(3, 2, 1, 0, 3), e.cycle());
+        }
+
+        RecursiveFunction<Integer, Integer> plainCyclic = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.call(3);
+            return func.call(n - 1).transform(v -> v + 1);
+        });
+
+        try {
+            plainCyclic.execute(5, ExecutionLimits.none().detectCycles());
+            throw new RuntimeException("ERR: cycle not detected");
+        } catch (RecursionCycleException e) {
+            assertEquals(List.of(3, 2, 1, 0, 3), e.cycle());
+        }
+
+        AtomicReference<RecursiveFunction<Integer, Integer>> pingRef = new AtomicReference<>();
+        RecursiveFunction<Integer, Integer> pong = new RecursiveFunction<>((func, n) -> func.call(pingRef.get(), n));
+        pingRef.set(new RecursiveFunction<>((func, n) -> n > 0 ? func.call(n - 1) : func.call(pong, 1)));
+
+        try {
+            pingRef.get().execute(2, ExecutionLimits.none().detectCycles());
+            throw new RuntimeException("ERR: cycle not detected");
+        } catch (RecursionCycleException e) {
+            assertEquals(List.of(1, 0, 1, 1), e.cycle());
+        }
+
+        assertEquals(fib(20), fib.execute(20, ExecutionLimits.none().detectCycles()));
+        assertEquals(mTrip(15), mTrip.execute(15, ExecutionLimits.none().detectCycles()));
+
+        List<ExecutionStats> sharedStats = new ArrayList<>();
+        assertEquals((long) fib(30), memoFib.withListener(sharedStats::add).execute(30));
+        assertEquals(31L, sharedStats.get(0).calls());
+        assertEquals(28L, sharedStats.get(0).cacheHits());
+
+        System.out.println("PASSED: cycles");
+
+        AtomicReference<RecursiveFunction<Long, Integer>> isOddRef = new AtomicReference<>();
+
+        RecursiveFunction<Integer, Boolean> isEvenMutual = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result(true);
+            return func.call(isOddRef.get(), (long) n - 1, odd -> odd == 1);
+        });
+
+        isOddRef.set(new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result(0);
+            return func.call(isEvenMutual, (int) (n - 1), even -> even ? 1 : 0);
+        }));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 2 == 0, isEvenMutual.execute(i));
+            assertEquals(i % 2, isOddRef.get().execute((long) i));
+        }
+
+        assertEquals(true, isEvenMutual.execute(1000000));
+
+        AtomicReference<RecursiveFunction<String, Integer>> termRef = new AtomicReference<>();
+
+        // sums a list of terms separated by '+', where a term is a number or a parenthesized sum
+        RecursiveFunction<List<String>, Integer> sum = new RecursiveFunction<>((func, terms) -> {
+            if (terms.isEmpty()) return func.result(0);
+            return func.call(termRef.get(), terms.get(0)).join(func.call(terms.subList(1, terms.size())), Integer::sum);
+        });
+
+        termRef.set(RecursiveFunction.memoized((func, term) -> {
+            if (!term.startsWith("(")) return func.result(Integer.parseInt(term));
+            return func.call(sum, splitTerms(term.substring(1, term.length() - 1)));
+        }));
+
+        assertEquals(21, sum.execute(List.of("1", "(2+(3+4))", "5", "(6)")));
+        assertEquals(21, termRef.get().execute("(1+(2+(3+4))+5+(6))"));
+
+        RecursiveFunction<Integer, Integer> hundredfold = new RecursiveFunction<>((func, n) -> func.result(n * 100));
+        RecursiveFunction<Integer, Integer> memoCross = RecursiveFunction.memoized((func, n) -> {
+            if (n <= 0) return func.result(0);
+            return func.call(n - 1).join(func.call(hundredfold, n - 1), Integer::sum);
+        });
+
+        // the calls to hundredfold must not be answered from the cache of memoCross, which has the same key type
+        assertEquals(100 * 19 * 20 / 2, memoCross.execute(20));
+
+        System.out.println("PASSED: mutual recursion");
+
+        // the length of the concatenated digits of all numbers from 0 to n, built through strings
+        RecursiveFunction<Integer, Integer> digits = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result(1);
+            return func.result(n).map(String::valueOf)
+                    .combine(func.call(n - 1), (String s, Integer rest) -> s.length() + rest);
+        });
+
+        assertEquals(193, digits.execute(100));
+        assertEquals(193, digits.executeParallel(100, ForkJoinPool.commonPool(), 4));
+        assertEquals(List.of(193), digits.executeStream(100).collect(Collectors.toList()));
+
+        RecursiveFunction<Integer, Double> mean = new RecursiveFunction<>((func, n) -> {
+            if (n <= 1) return func.result(1.0);
+            return func.call(n - 1).map(average -> Math.round(average * (n - 1)))
+                    .combine(func.result((double) n), (Long total, Double last) -> (total + last) / n);
+        });
+
+        assertEquals(50.5, mean.execute(100));
+
+        RecursiveFunction<Integer, String> counting = new RecursiveFunction<>((func, n) -> {
+            if (n == 0) return func.result("0");
+            return func.call(n - 1).map(Integer::valueOf).map(v -> v + 1).map(String::valueOf);
+        });
+
+        assertEquals("100000", counting.execute(100000));
+
+        System.out.println("PASSED: map and combine");
+
+        ExecutionProfiler profiler = new ExecutionProfiler();
+        assertEquals(fib(10), fib.withListener(profiler).execute(10));
+
+        assertEquals(1L, profiler.executions());
+        assertEquals(177L, profiler.calls());
+        assertEquals(177L, profiler.samples());
+        assertEquals(List.of("1", "0", "2"), profiler.hotArguments(3).stream().map(Map.Entry::getKey)
+                .collect(Collectors.toList()));
+        assertEquals(55L, profiler.hotArguments(1).get(0).getValue());
+        assertEquals(89L, profiler.fanOutHistogram()[0]);
+        assertEquals(88L, profiler.fanOutHistogram()[2]);
+        assertEquals(177L, Arrays.stream(profiler.depthHistogram()).sum());
+        assertEquals(true, profiler.toCollapsedStacks().contains("10;9;8;7;6;5;4;3;2;1 1\n"));
+        assertEquals(true, profiler.toJson(1).startsWith("{\"executions\":1,\"calls\":177,\"samples\":177,"
+                + "\"interval\":1,\"hotArguments\":[{\"argument\":\"1\",\"samples\":55}],\"fanOut\":[89,0,88,"));
+
+        ExecutionProfiler sampling = new ExecutionProfiler(10);
+        assertEquals(fib(10), fib.withListener(sampling).execute(10));
+        assertEquals(17L, sampling.samples());
+
+        ExecutionProfiler deep = new ExecutionProfiler(1000);
+        assertEquals(100000, counter.withListener(deep).execute(100000));
+        assertEquals(100L, deep.samples());
+        assertEquals(true, deep.toCollapsedStacks().startsWith("..."));
+
+        ExecutionProfiler paths = new ExecutionProfiler();
+        assertEquals(fib(25), fib.withListener(paths).execute(25));
+        assertEquals(4096L, paths.toCollapsedStacks().lines().count());
+
+        // the calls kept on the callstack for the profiler do not count towards the depth
+        RecursiveFunction<Integer, Integer> countdown = new RecursiveFunction<>((func, n) ->
+                n <= 0 ? func.result(0) : func.call(n - 1));
+        List<ExecutionStats> countdownStats = new ArrayList<>();
+        assertEquals(0, countdown.withListener(countdownStats::add).execute(100000));
+        assertEquals(0, countdown.withListener(deep).execute(100000, ExecutionLimits.none().maxDepth(4)));
+
+        ExecutionProfiler observing = new ExecutionProfiler() {
+            @Override
+            public void executed(ExecutionStats stats) {
+                super.executed(stats);
+                countdownStats.add(stats);
+            }
+        };
+        assertEquals(0, countdown.withListener(observing).execute(100000));
+        assertEquals(countdownStats.get(0).maxDepth(), countdownStats.get(1).maxDepth());
+
+        assertEquals(memoFib.execute(40), memoFib.withListener(profiler).execute(40));
+        profiler.reset();
+        assertEquals(0L, profiler.samples());
+        assertEquals("{\"executions\":0,\"calls\":0,\"samples\":0,\"interval\":1,\"hotArguments\":[],"
+                + "\"fanOut\":[0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0],"
+                + "\"depth\":[0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0]}",
+                profiler.toJson(10));
+
+        System.out.println("PASSED: profiler");
     }
 
     private static RecursiveFunction.JoinFunction<Integer> joinFunction = Integer::sum;
 
+    private static final RecursiveFunction<Integer, Integer> constant = new RecursiveFunction<>(RecursiveFunction::result);
+
+    private static final RecursiveFunction.Result<Integer, Integer> sharedResult =
+            constant.result(1).join(constant.result(2), Integer::sum);
+
+    private static ExecutionLimitException.Reason limitReason(Runnable execution) {
+        try {
+            execution.run();
+        } catch (ExecutionLimitException e) {
+            return e.reason();
+        }
+
+        return null;
+    }
+
     private static int fib(int n) {
         if (n <= 1) return 1;
         return fib(n - 1) + fib(n - 2);
@@ -245,6 +1062,24 @@ public class Test {
         return oneback + twoback + threeback - 3;
     }
 
+    private static List<String> splitTerms(String sum) {
+        List<String> terms = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+
+        for (int i = 0; i < sum.length(); i++) {
+            if (sum.charAt(i) == '(') depth++;
+            else if (sum.charAt(i) == ')') depth--;
+            else if (sum.charAt(i) == '+' && depth == 0) {
+                terms.add(sum.substring(start, i));
+                start = i + 1;
+            }
+        }
+
+        terms.add(sum.substring(start));
+        return terms;
+    }
+
     private static int fact(int n) {
         if (n <= 1) return 1;
         else return fact(n - 1) * n;